@@ -0,0 +1,30 @@
+package frc.robot.benchmarks;
+
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.util.Units;
+
+/**
+ * Copy of the drivetrain geometry from Constants. Constants can't be loaded here since it asks the
+ * HAL what platform it is running on, and the benchmarks run without the native libraries.
+ */
+final class BenchmarkConstants {
+  static final double CENTER_TO_WHEEL_X = Units.inchesToMeters(28/2);
+  static final double CENTER_TO_WHEEL_Y = Units.inchesToMeters(28/2);
+  static final double MAX_SPEED = 4;
+
+  static final double[] MODULE_X = {
+      -CENTER_TO_WHEEL_X, -CENTER_TO_WHEEL_X, CENTER_TO_WHEEL_X, CENTER_TO_WHEEL_X};
+  static final double[] MODULE_Y = {
+      CENTER_TO_WHEEL_Y, -CENTER_TO_WHEEL_Y, -CENTER_TO_WHEEL_Y, CENTER_TO_WHEEL_Y};
+
+  private BenchmarkConstants() {}
+
+  static SwerveDriveKinematics createKinematics() {
+    return new SwerveDriveKinematics(
+        new Translation2d(MODULE_X[0], MODULE_Y[0]),
+        new Translation2d(MODULE_X[1], MODULE_Y[1]),
+        new Translation2d(MODULE_X[2], MODULE_Y[2]),
+        new Translation2d(MODULE_X[3], MODULE_Y[3]));
+  }
+}
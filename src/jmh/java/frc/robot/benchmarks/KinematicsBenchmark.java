@@ -0,0 +1,54 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.lib.util.SwerveMath;
+
+/**
+ * Inverse kinematics plus desaturation, the first half of SwerveDrivetrain.swerveDrive, through
+ * WPILib objects and through the primitive path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class KinematicsBenchmark {
+  private final SwerveDriveKinematics kinematics = BenchmarkConstants.createKinematics();
+
+  private final double[] chassisSpeeds = new double[3];
+  private final double[] moduleSpeeds = new double[4];
+  private final double[] moduleAngles = new double[4];
+
+  private int tick = 0;
+
+  @Benchmark
+  public void wpilibObjects(Blackhole blackhole) {
+    double t = tick++ * 0.001;
+    SwerveModuleState[] states = kinematics.toSwerveModuleStates(
+        ChassisSpeeds.fromFieldRelativeSpeeds(3.0 * Math.cos(t), 3.0 * Math.sin(t), 2.0, Rotation2d.fromRadians(t)));
+    SwerveDriveKinematics.desaturateWheelSpeeds(states, BenchmarkConstants.MAX_SPEED);
+    blackhole.consume(states);
+  }
+
+  @Benchmark
+  public void primitiveBuffers(Blackhole blackhole) {
+    double t = tick++ * 0.001;
+    SwerveMath.fromFieldRelative(3.0 * Math.cos(t), 3.0 * Math.sin(t), 2.0, t, chassisSpeeds);
+    SwerveMath.toModuleStates(chassisSpeeds[0], chassisSpeeds[1], chassisSpeeds[2],
+        BenchmarkConstants.MODULE_X, BenchmarkConstants.MODULE_Y, moduleSpeeds, moduleAngles);
+    SwerveMath.desaturate(moduleSpeeds, BenchmarkConstants.MAX_SPEED);
+    blackhole.consume(moduleSpeeds);
+    blackhole.consume(moduleAngles);
+  }
+}
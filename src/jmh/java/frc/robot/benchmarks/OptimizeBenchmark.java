@@ -0,0 +1,42 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+import frc.lib.util.SwerveMath;
+
+/** The optimize step at the top of SwerveModules.setDesiredState, per module. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class OptimizeBenchmark {
+  private int tick = 0;
+
+  @Benchmark
+  public SwerveModuleState wpilibObjects() {
+    double target = (tick++ * 7) % 360 - 180.0;
+    SwerveModuleState desired = new SwerveModuleState(2.0, Rotation2d.fromDegrees(target));
+    return SwerveModuleState.optimize(desired, Rotation2d.fromDegrees(-target * 0.5));
+  }
+
+  @Benchmark
+  public void primitives(Blackhole blackhole) {
+    double target = (tick++ * 7) % 360 - 180.0;
+    double speed = 2.0;
+    if (SwerveMath.shouldReverse(target, -target * 0.5)) {
+      speed = -speed;
+      target = SwerveMath.reverse(target);
+    }
+    blackhole.consume(speed);
+    blackhole.consume(target);
+  }
+}
@@ -0,0 +1,47 @@
+package frc.robot.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+
+/**
+ * One odometry update as done in SwerveDrivetrain.periodic. Uses updateWithTime so the benchmark
+ * does not need the WPILib native timestamp.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseEstimatorBenchmark {
+  private SwerveDrivePoseEstimator poseEstimator;
+  private final SwerveModulePosition[] positions = new SwerveModulePosition[] {
+    new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+  };
+  private double timestamp = 0.0;
+
+  @Setup
+  public void setup() {
+    poseEstimator = new SwerveDrivePoseEstimator(
+        BenchmarkConstants.createKinematics(), new Rotation2d(), positions, new Pose2d());
+  }
+
+  @Benchmark
+  public Pose2d updateWithTime() {
+    timestamp += 0.02;
+    for (int i = 0; i < positions.length; i++) {
+      positions[i].distanceMeters += 0.05;
+      positions[i].angle = Rotation2d.fromDegrees(timestamp * 10.0);
+    }
+    return poseEstimator.updateWithTime(timestamp, Rotation2d.fromRadians(timestamp * 0.5), positions);
+  }
+}
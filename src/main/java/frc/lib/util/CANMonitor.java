@@ -0,0 +1,151 @@
+package frc.lib.util;
+
+import java.util.function.DoubleSupplier;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.hal.can.CANJNI;
+import edu.wpi.first.hal.can.CANStatus;
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Samples CAN bus health and how old each device's data is, and logs both under "CAN/". A warning
+ * is sent to the driver station when the bus is saturated, the controller error counters reach the
+ * warning level, the bus goes off, or a device's data goes stale.
+ *
+ * <p>Devices register a freshness signal: a value that changes whenever a new status frame
+ * arrives, such as a CANCoder's last frame timestamp or a noisy Spark Max reading like bus
+ * voltage. A device's data age is the time since its signal last changed, so it's an upper bound
+ * for devices whose signal can legitimately repeat. Devices whose signal only moves while the
+ * motors are driven, like a Spark Max's, are only checked while enabled. Main thread only.
+ */
+public final class CANMonitor {
+  private static final int MAX_DEVICES = 32;
+  private static final int SAMPLE_PERIOD_CYCLES = 5;
+  private static final double HIGH_UTILIZATION = 0.9;
+  // CAN controllers go error passive at 128, the spec's error warning level is 96
+  private static final int ERROR_WARNING_COUNT = 96;
+  private static final String ROOT = "CAN/";
+
+  private static final CANStatus status = new CANStatus();
+
+  private static final String[] names = new String[MAX_DEVICES];
+  private static final String[] ageKeys = new String[MAX_DEVICES];
+  private static final String[] staleKeys = new String[MAX_DEVICES];
+  private static final DoubleSupplier[] signals = new DoubleSupplier[MAX_DEVICES];
+  private static final double[] staleSecs = new double[MAX_DEVICES];
+  private static final double[] lastValues = new double[MAX_DEVICES];
+  private static final double[] lastChangeSecs = new double[MAX_DEVICES];
+  private static final boolean[] stale = new boolean[MAX_DEVICES];
+  private static final boolean[] onlyWhileEnabled = new boolean[MAX_DEVICES];
+
+  private static int deviceCount = 0;
+  private static int cycle = 0;
+  private static int lastBusOffCount = 0;
+  private static boolean highUtilization = false;
+  private static boolean errorWarning = false;
+
+  private CANMonitor() {}
+
+  /**
+   * Registers a device to watch. Call once, at construction.
+   * @param name Name in the log, for example "Spark 5".
+   * @param signal Returns a value that changes with every new status frame.
+   * @param staleSecs How long the signal can go unchanged before the device counts as stale.
+   */
+  public static void register(String name, DoubleSupplier signal, double staleSecs) {
+    register(name, signal, staleSecs, false);
+  }
+
+  /**
+   * Registers a device to watch. Call once, at construction.
+   * @param name Name in the log, for example "Spark 5".
+   * @param signal Returns a value that changes with every new status frame.
+   * @param staleSecs How long the signal can go unchanged before the device counts as stale.
+   * @param onlyWhileEnabled Whether the signal can hold steady while disabled, so the device is
+   *     only checked while enabled.
+   */
+  public static void register(String name, DoubleSupplier signal, double staleSecs, boolean onlyWhileEnabled) {
+    if (deviceCount == MAX_DEVICES) {
+      throw new IllegalStateException("Too many CAN devices, raise CANMonitor.MAX_DEVICES");
+    }
+    int device = deviceCount++;
+    names[device] = name;
+    ageKeys[device] = ROOT + "Devices/" + name + "/AgeMS";
+    staleKeys[device] = ROOT + "Devices/" + name + "/Stale";
+    signals[device] = signal;
+    CANMonitor.staleSecs[device] = staleSecs;
+    CANMonitor.onlyWhileEnabled[device] = onlyWhileEnabled;
+    lastValues[device] = Double.NaN;
+    lastChangeSecs[device] = Logger.getInstance().getRealTimestamp() / 1.0e6;
+  }
+
+  /** Run every cycle by Diagnostics. Samples every few cycles. */
+  public static void periodic() {
+    if (++cycle < SAMPLE_PERIOD_CYCLES) {
+      return;
+    }
+    cycle = 0;
+    sampleBus();
+    sampleDevices();
+  }
+
+  private static void sampleBus() {
+    CANJNI.getCANStatus(status);
+    Logger.getInstance().recordOutput(ROOT + "Utilization", status.percentBusUtilization * 100.0);
+    Logger.getInstance().recordOutput(ROOT + "BusOffCount", status.busOffCount);
+    Logger.getInstance().recordOutput(ROOT + "TxFullCount", status.txFullCount);
+    Logger.getInstance().recordOutput(ROOT + "ReceiveErrorCount", status.receiveErrorCount);
+    Logger.getInstance().recordOutput(ROOT + "TransmitErrorCount", status.transmitErrorCount);
+
+    boolean nowHigh = status.percentBusUtilization >= HIGH_UTILIZATION;
+    if (nowHigh && !highUtilization) {
+      DriverStation.reportWarning(String.format(
+          "CAN bus utilization at %.0f%%", status.percentBusUtilization * 100.0), false);
+    }
+    highUtilization = nowHigh;
+
+    boolean nowErrors = status.receiveErrorCount >= ERROR_WARNING_COUNT
+        || status.transmitErrorCount >= ERROR_WARNING_COUNT;
+    if (nowErrors && !errorWarning) {
+      DriverStation.reportWarning("CAN error counters high (rx " + status.receiveErrorCount
+          + ", tx " + status.transmitErrorCount + "), check wiring and termination", false);
+    }
+    errorWarning = nowErrors;
+
+    if (status.busOffCount > lastBusOffCount) {
+      DriverStation.reportWarning("CAN bus went off " + (status.busOffCount - lastBusOffCount)
+          + " time(s), check wiring", false);
+    }
+    lastBusOffCount = status.busOffCount;
+
+    Logger.getInstance().recordOutput(ROOT + "Alerts/HighUtilization", highUtilization);
+    Logger.getInstance().recordOutput(ROOT + "Alerts/ErrorWarning", errorWarning);
+  }
+
+  private static void sampleDevices() {
+    double now = Logger.getInstance().getRealTimestamp() / 1.0e6;
+    boolean enabled = DriverStation.isEnabled();
+    int staleCount = 0;
+    for (int device = 0; device < deviceCount; device++) {
+      double value = signals[device].getAsDouble();
+      // Disabled counts as fresh, so the age starts over when the robot is enabled
+      if (value != lastValues[device] || (onlyWhileEnabled[device] && !enabled)) {
+        lastValues[device] = value;
+        lastChangeSecs[device] = now;
+      }
+      double age = now - lastChangeSecs[device];
+      boolean nowStale = age > staleSecs[device];
+      if (nowStale && !stale[device]) {
+        DriverStation.reportWarning(names[device] + " data is stale, check its CAN connection", false);
+      }
+      stale[device] = nowStale;
+      if (nowStale) {
+        staleCount++;
+      }
+      Logger.getInstance().recordOutput(ageKeys[device], age * 1000.0);
+      Logger.getInstance().recordOutput(staleKeys[device], nowStale);
+    }
+    Logger.getInstance().recordOutput(ROOT + "Alerts/StaleDevices", staleCount);
+  }
+}
@@ -0,0 +1,42 @@
+package frc.lib.util;
+
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.networktables.NetworkTable;
+import edu.wpi.first.networktables.NetworkTableInstance;
+
+/**
+ * Rate-limited dashboard telemetry. Publishers are created once at construction so nothing is
+ * looked up or formatted per loop, and {@link #shouldPublish()} only opens up every few cycles so
+ * the dashboard gets a readable rate while the log still records every cycle.
+ */
+public class DashboardPublisher {
+  private final NetworkTable table;
+  private final int periodCycles;
+  private int cycle = 0;
+
+  /**
+   * @param tableName The NetworkTables table to publish under, for example "SmartDashboard".
+   * @param periodCycles Publish once every this many loop cycles.
+   */
+  public DashboardPublisher(String tableName, int periodCycles) {
+    table = NetworkTableInstance.getDefault().getTable(tableName);
+    this.periodCycles = Math.max(1, periodCycles);
+  }
+
+  /**
+   * Creates a numeric entry. Call at construction and keep the publisher.
+   * @param key The entry name.
+   */
+  public DoublePublisher addDouble(String key) {
+    return table.getDoubleTopic(key).publish();
+  }
+
+  /** Call once per cycle; returns true on the cycles the dashboard should be updated. */
+  public boolean shouldPublish() {
+    if (++cycle >= periodCycles) {
+      cycle = 0;
+      return true;
+    }
+    return false;
+  }
+}
@@ -0,0 +1,147 @@
+package frc.lib.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.zip.CRC32;
+
+/**
+ * An ordered list of configuration steps for one CAN device, run by {@link DeviceConfigurator}.
+ * Each step applies a setting and, where the device lets us read it back, verifies it.
+ *
+ * <p>Parameters that live in the device's flash carry their value so the config can be
+ * fingerprinted. When a fingerprint key is set and the stored fingerprint matches, the
+ * configurator only verifies those parameters and skips the factory reset and flash burn.
+ */
+public class DeviceConfig {
+  enum Kind {
+    FACTORY_RESET,
+    PARAMETER,
+    VOLATILE,
+    BURN_FLASH
+  }
+
+  /** One configuration step. */
+  static class Step {
+    final Kind kind;
+    final String name;
+    final Object value;
+    final BooleanSupplier apply;
+    final BooleanSupplier verify;
+    final boolean verifiable;
+
+    Step(Kind kind, String name, Object value, BooleanSupplier apply, BooleanSupplier verify) {
+      this.kind = kind;
+      this.name = name;
+      this.value = value;
+      this.apply = apply;
+      this.verify = verify != null ? verify : () -> true;
+      this.verifiable = verify != null;
+    }
+  }
+
+  final String deviceName;
+  final List<Step> steps = new ArrayList<>();
+  String fingerprintKey = null;
+
+  /**
+   * @param deviceName Name used in the startup report, for example "Spark 5".
+   */
+  public DeviceConfig(String deviceName) {
+    this.deviceName = deviceName;
+  }
+
+  /**
+   * Stores this config's fingerprint in Preferences under the key after a successful burn, and
+   * skips the reset and burn on later boots while it still matches.
+   * @param key The Preferences key, unique per device.
+   */
+  public DeviceConfig persistTo(String key) {
+    fingerprintKey = key;
+    return this;
+  }
+
+  /** Adds the factory reset. Skipped when the stored fingerprint matches. */
+  public DeviceConfig factoryReset(BooleanSupplier apply) {
+    steps.add(new Step(Kind.FACTORY_RESET, "FactoryDefaults", null, apply, null));
+    return this;
+  }
+
+  /**
+   * Adds a flash-stored parameter that can only be checked by its return code.
+   * @param name The parameter being set.
+   * @param value The value being set, part of the fingerprint.
+   * @param apply Sets the parameter, returning true if the device acknowledged it.
+   */
+  public DeviceConfig parameter(String name, Object value, BooleanSupplier apply) {
+    steps.add(new Step(Kind.PARAMETER, name, value, apply, null));
+    return this;
+  }
+
+  /**
+   * Adds a flash-stored parameter that is read back after being set.
+   * @param name The parameter being set.
+   * @param value The value being set, part of the fingerprint.
+   * @param apply Sets the parameter, returning true if the device acknowledged it.
+   * @param verify Reads the parameter back, returning true if it matches.
+   */
+  public DeviceConfig parameter(String name, Object value, BooleanSupplier apply, BooleanSupplier verify) {
+    steps.add(new Step(Kind.PARAMETER, name, value, apply, verify));
+    return this;
+  }
+
+  /**
+   * Adds a setting that isn't kept in flash, such as status frame periods. Always applied.
+   * @param name The setting.
+   * @param apply Applies it, returning true if the device acknowledged it.
+   */
+  public DeviceConfig apply(String name, BooleanSupplier apply) {
+    steps.add(new Step(Kind.VOLATILE, name, null, apply, null));
+    return this;
+  }
+
+  /** Adds the flash burn. Skipped when the stored fingerprint matches. */
+  public DeviceConfig burnFlash(BooleanSupplier apply) {
+    steps.add(new Step(Kind.BURN_FLASH, "BurnFlash", null, apply, null));
+    return this;
+  }
+
+  /** A hash of every flash-stored parameter and its value, in order. */
+  String fingerprint() {
+    StringBuilder text = new StringBuilder(deviceName);
+    for (Step step : steps) {
+      if (step.kind == Kind.PARAMETER) {
+        text.append(';').append(step.name).append('=').append(step.value);
+      }
+    }
+    CRC32 crc = new CRC32();
+    crc.update(text.toString().getBytes(StandardCharsets.UTF_8));
+    return Long.toHexString(crc.getValue());
+  }
+
+  /**
+   * Whether the device already holds this config: the stored fingerprint is this config's, and
+   * every flash-stored parameter that has a getter still reads back the same.
+   * @param storedFingerprint The fingerprint saved after the last successful burn, or "".
+   */
+  boolean matchesStored(String storedFingerprint) {
+    if (!fingerprint().equals(storedFingerprint)) {
+      return false;
+    }
+    for (Step step : steps) {
+      if (step.kind == Kind.PARAMETER && step.verifiable && !step.verify.getAsBoolean()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Compares a read-back value with the one that was set. Spark Max parameters are stored as
+   * floats, so an exact double compare would fail.
+   */
+  public static boolean matches(double actual, double expected) {
+    return Math.abs(actual - expected) <= 1e-6 * Math.max(1.0, Math.abs(expected));
+  }
+}
@@ -0,0 +1,152 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Preferences;
+
+/**
+ * Configures CAN devices concurrently on a small worker pool so robotInit doesn't wait on every
+ * device in turn. Each step is retried a bounded number of times until it is acknowledged and, if
+ * it can be read back, verified. Callers keep their hardware in a safe idle state until their
+ * future completes. Configs with a stored fingerprint skip the factory reset and flash burn when
+ * the device already holds them. {@link #periodic()} logs the per-device and total startup time
+ * once everything is done.
+ */
+public final class DeviceConfigurator {
+  private static final int MAX_ATTEMPTS = 5;
+  private static final int POOL_SIZE = 4;
+
+  private static final ExecutorService pool = Executors.newFixedThreadPool(POOL_SIZE, runnable -> {
+    Thread thread = new Thread(() -> {
+      RealTime.lowerCurrentThread("DeviceConfigurator");
+      runnable.run();
+    }, "DeviceConfigurator");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  private static final List<Result> results = new ArrayList<>();
+  private static final AtomicInteger pending = new AtomicInteger();
+  private static long firstSubmitNanos = 0;
+  private static volatile long lastDoneNanos = 0;
+  private static boolean reported = false;
+
+  /** Outcome of configuring one device. */
+  private static class Result {
+    final String deviceName;
+    final boolean success;
+    final boolean flashSkipped;
+    final double millis;
+    final String failedSteps;
+
+    Result(String deviceName, boolean success, boolean flashSkipped, double millis, String failedSteps) {
+      this.deviceName = deviceName;
+      this.success = success;
+      this.flashSkipped = flashSkipped;
+      this.millis = millis;
+      this.failedSteps = failedSteps;
+    }
+  }
+
+  private DeviceConfigurator() {}
+
+  /**
+   * Queues a device's configuration on the worker pool.
+   * @param config The steps to run, in order.
+   * @return Completes with true if every step was applied and verified.
+   */
+  public static synchronized CompletableFuture<Boolean> submit(DeviceConfig config) {
+    if (firstSubmitNanos == 0) {
+      firstSubmitNanos = System.nanoTime();
+    }
+    pending.incrementAndGet();
+    reported = false;
+    return CompletableFuture.supplyAsync(() -> run(config), pool);
+  }
+
+  /** Whether every submitted configuration has finished. */
+  public static boolean isDone() {
+    return pending.get() == 0;
+  }
+
+  private static boolean run(DeviceConfig config) {
+    long start = System.nanoTime();
+    String fingerprint = config.fingerprint();
+    // Flash already holds this config: only the volatile settings need sending
+    boolean flashMatches = config.fingerprintKey != null
+        && config.matchesStored(Preferences.getString(config.fingerprintKey, ""));
+
+    StringBuilder failed = new StringBuilder();
+    for (DeviceConfig.Step step : config.steps) {
+      if (flashMatches && step.kind != DeviceConfig.Kind.VOLATILE) {
+        continue;
+      }
+      if (!runStep(step)) {
+        if (failed.length() > 0) {
+          failed.append(", ");
+        }
+        failed.append(step.name);
+      }
+    }
+    long end = System.nanoTime();
+
+    boolean success = failed.length() == 0;
+    if (success && !flashMatches && config.fingerprintKey != null) {
+      Preferences.setString(config.fingerprintKey, fingerprint);
+    }
+    synchronized (DeviceConfigurator.class) {
+      results.add(new Result(
+          config.deviceName, success, flashMatches, (end - start) / 1.0e6, failed.toString()));
+    }
+    lastDoneNanos = end;
+    pending.decrementAndGet();
+    return success;
+  }
+
+  private static boolean runStep(DeviceConfig.Step step) {
+    for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+      try {
+        if (step.apply.getAsBoolean() && step.verify.getAsBoolean()) {
+          return true;
+        }
+      } catch (RuntimeException e) {
+        // Counts as a failed attempt, so the device is still reported and its future completes false
+      }
+    }
+    return false;
+  }
+
+  /** Logs the startup report once everything has finished. Run every cycle by Diagnostics. */
+  public static synchronized void periodic() {
+    if (reported || firstSubmitNanos == 0 || !isDone()) {
+      return;
+    }
+    reported = true;
+
+    boolean allSucceeded = true;
+    for (Result result : results) {
+      String key = "Startup/Config/" + result.deviceName;
+      Logger.getInstance().recordOutput(key + "/Millis", result.millis);
+      Logger.getInstance().recordOutput(key + "/Success", result.success);
+      Logger.getInstance().recordOutput(key + "/FlashSkipped", result.flashSkipped);
+      if (!result.success) {
+        allSucceeded = false;
+        DriverStation.reportWarning(
+            result.deviceName + " failed to configure: " + result.failedSteps, false);
+      }
+    }
+    double totalMillis = (lastDoneNanos - firstSubmitNanos) / 1.0e6;
+    Logger.getInstance().recordOutput("Startup/Config/TotalMillis", totalMillis);
+    Logger.getInstance().recordOutput("Startup/Config/AllSucceeded", allSucceeded);
+    Logger.getInstance().recordOutput("Startup/Config/DeviceCount", results.size());
+  }
+}
@@ -0,0 +1,166 @@
+package frc.lib.util;
+
+import java.util.Arrays;
+
+import org.littletonrobotics.junction.Logger;
+
+import frc.robot.Constants;
+
+/**
+ * Per-span loop timing. Code registers a span once, then wraps its work in {@link #start(int)} and
+ * {@link #stop(int)} every cycle. Each span keeps a rolling window of per-cycle times and publishes
+ * p50/p95/max, and when a cycle overruns the span that used the most time is logged as the top
+ * offender. The whole cycle's jitter, how far its period was from the loop period, gets the same
+ * statistics. Main thread only.
+ */
+public final class LoopTimings {
+  private static final int MAX_SPANS = 32;
+  private static final int WINDOW = 50;
+  private static final int STATS_PERIOD_CYCLES = 10;
+  private static final String ROOT = "LoopTiming/";
+  // Cycle time not inside any span: AdvantageKit logging, the scheduler itself, and, when the
+  // cycle did not overrun, the wait for the next loop
+  private static final String UNTRACKED = "Logging+Framework";
+  // The period Robot runs at, REAL_TIME_LOOP_PERIOD_SECS in real-time mode
+  private static final long LOOP_PERIOD_NANOS = (long) (Constants.LOOP_PERIOD_SECS * 1.0e9);
+
+  private static final String[] names = new String[MAX_SPANS];
+  private static final String[] cycleKeys = new String[MAX_SPANS];
+  private static final String[] p50Keys = new String[MAX_SPANS];
+  private static final String[] p95Keys = new String[MAX_SPANS];
+  private static final String[] maxKeys = new String[MAX_SPANS];
+
+  private static final long[] startNanos = new long[MAX_SPANS];
+  private static final long[] cycleNanos = new long[MAX_SPANS];
+  private static final long[][] window = new long[MAX_SPANS][WINDOW];
+  private static final long[] scratch = new long[WINDOW];
+  // How far each cycle's start-to-start period was from the loop period
+  private static final long[] jitterWindow = new long[WINDOW];
+
+  private static final int untrackedSpan;
+  private static int spanCount = 0;
+  private static int windowIndex = 0;
+  private static int windowFill = 0;
+  private static int cyclesSinceStats = 0;
+
+  private static long lastCycleStart = 0;
+  private static long lastCycleNanos = 0;
+  private static long overrunCount = 0;
+  private static boolean lastCycleOverran = false;
+
+  static {
+    untrackedSpan = register(UNTRACKED);
+  }
+
+  private LoopTimings() {}
+
+  /**
+   * Registers a span. Call once, at construction, and keep the id. Registering a name again
+   * returns the existing span, so a second instance of a class shares its spans.
+   * @param name Name of the span in the log, for example "Drivetrain/Periodic".
+   * @return The span id to pass to start and stop.
+   */
+  public static int register(String name) {
+    for (int span = 0; span < spanCount; span++) {
+      if (names[span].equals(name)) {
+        return span;
+      }
+    }
+    if (spanCount == MAX_SPANS) {
+      throw new IllegalStateException("Too many loop timing spans, raise LoopTimings.MAX_SPANS");
+    }
+    int span = spanCount++;
+    names[span] = name;
+    cycleKeys[span] = ROOT + name + "/CycleMS";
+    p50Keys[span] = ROOT + name + "/P50MS";
+    p95Keys[span] = ROOT + name + "/P95MS";
+    maxKeys[span] = ROOT + name + "/MaxMS";
+    return span;
+  }
+
+  public static void start(int span) {
+    startNanos[span] = System.nanoTime();
+  }
+
+  public static void stop(int span) {
+    cycleNanos[span] += System.nanoTime() - startNanos[span];
+  }
+
+  /**
+   * Closes out the previous cycle and starts a new one. Call once, at the top of robotPeriodic, so
+   * the measured cycle runs start to start and includes logging.
+   */
+  public static void beginCycle() {
+    long now = System.nanoTime();
+    if (lastCycleStart != 0) {
+      finishCycle(now - lastCycleStart);
+    }
+    lastCycleStart = now;
+  }
+
+  /** Length of the last full cycle in nanoseconds. */
+  public static long getLastCycleNanos() {
+    return lastCycleNanos;
+  }
+
+  /** Whether the last full cycle ran past the loop period. */
+  public static boolean didLastCycleOverrun() {
+    return lastCycleOverran;
+  }
+
+  private static void finishCycle(long totalNanos) {
+    long tracked = 0;
+    for (int span = 0; span < spanCount; span++) {
+      if (span != untrackedSpan) {
+        tracked += cycleNanos[span];
+      }
+    }
+    cycleNanos[untrackedSpan] = Math.max(0, totalNanos - tracked);
+
+    int worst = 0;
+    for (int span = 0; span < spanCount; span++) {
+      window[span][windowIndex] = cycleNanos[span];
+      Logger.getInstance().recordOutput(cycleKeys[span], cycleNanos[span] / 1.0e6);
+      if (cycleNanos[span] > cycleNanos[worst]) {
+        worst = span;
+      }
+    }
+
+    lastCycleNanos = totalNanos;
+    lastCycleOverran = totalNanos > LOOP_PERIOD_NANOS;
+    jitterWindow[windowIndex] = Math.abs(totalNanos - LOOP_PERIOD_NANOS);
+    Logger.getInstance().recordOutput(ROOT + "CycleMS", totalNanos / 1.0e6);
+    Logger.getInstance().recordOutput(ROOT + "JitterMS", jitterWindow[windowIndex] / 1.0e6);
+    if (lastCycleOverran) {
+      overrunCount++;
+      Logger.getInstance().recordOutput(ROOT + "TopOffender", names[worst]);
+      Logger.getInstance().recordOutput(ROOT + "TopOffenderMS", cycleNanos[worst] / 1.0e6);
+    }
+    Logger.getInstance().recordOutput(ROOT + "Overrun", lastCycleOverran);
+    Logger.getInstance().recordOutput(ROOT + "OverrunCount", overrunCount);
+
+    windowIndex = (windowIndex + 1) % WINDOW;
+    windowFill = Math.min(windowFill + 1, WINDOW);
+    if (++cyclesSinceStats >= STATS_PERIOD_CYCLES) {
+      cyclesSinceStats = 0;
+      publishStats();
+    }
+
+    Arrays.fill(cycleNanos, 0, spanCount, 0L);
+  }
+
+  private static void publishStats() {
+    for (int span = 0; span < spanCount; span++) {
+      System.arraycopy(window[span], 0, scratch, 0, windowFill);
+      Arrays.sort(scratch, 0, windowFill);
+      Logger.getInstance().recordOutput(p50Keys[span], scratch[(windowFill - 1) / 2] / 1.0e6);
+      Logger.getInstance().recordOutput(p95Keys[span], scratch[(windowFill * 95 - 1) / 100] / 1.0e6);
+      Logger.getInstance().recordOutput(maxKeys[span], scratch[windowFill - 1] / 1.0e6);
+    }
+    System.arraycopy(jitterWindow, 0, scratch, 0, windowFill);
+    Arrays.sort(scratch, 0, windowFill);
+    Logger.getInstance().recordOutput(ROOT + "JitterP50MS", scratch[(windowFill - 1) / 2] / 1.0e6);
+    Logger.getInstance().recordOutput(ROOT + "JitterP95MS", scratch[(windowFill * 95 - 1) / 100] / 1.0e6);
+    Logger.getInstance().recordOutput(ROOT + "JitterMaxMS", scratch[windowFill - 1] / 1.0e6);
+  }
+}
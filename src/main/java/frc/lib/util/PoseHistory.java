@@ -0,0 +1,120 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Fixed-capacity history of timestamped 2d poses, stored as primitive arrays in a ring. Lookups
+ * binary search for the two samples around a timestamp and interpolate between them, so nothing is
+ * allocated after construction. Once full, the oldest sample is overwritten. Not thread safe.
+ */
+public class PoseHistory {
+  private final int capacity;
+  private final double[] timestamps;
+  private final double[] xs;
+  private final double[] ys;
+  private final double[] thetas;
+  private int head = 0;
+  private int size = 0;
+
+  /** @param capacity The number of samples kept. */
+  public PoseHistory(int capacity) {
+    this.capacity = capacity;
+    timestamps = new double[capacity];
+    xs = new double[capacity];
+    ys = new double[capacity];
+    thetas = new double[capacity];
+  }
+
+  /**
+   * Adds a sample. Samples must arrive in time order; one older than the newest is ignored.
+   * @param timestamp Time of the pose in seconds.
+   * @param x Field x in meters.
+   * @param y Field y in meters.
+   * @param theta Heading in radians.
+   */
+  public void add(double timestamp, double x, double y, double theta) {
+    if (size > 0 && timestamp < timestamps[physical(size - 1)]) {
+      return;
+    }
+    int slot;
+    if (size < capacity) {
+      slot = physical(size++);
+    } else {
+      slot = head;
+      head = (head + 1) % capacity;
+    }
+    timestamps[slot] = timestamp;
+    xs[slot] = x;
+    ys[slot] = y;
+    thetas[slot] = theta;
+  }
+
+  /**
+   * Looks up the pose at a past time, interpolating between the samples around it. Times after
+   * the newest sample return the newest pose.
+   * @param timestamp Time to look up in seconds.
+   * @param out Receives {x, y, theta}.
+   * @return False if the history is empty or the time is older than the oldest sample.
+   */
+  public boolean sample(double timestamp, double[] out) {
+    if (size == 0 || timestamp < timestamps[head]) {
+      return false;
+    }
+    int newest = physical(size - 1);
+    if (timestamp >= timestamps[newest]) {
+      copy(newest, out);
+      return true;
+    }
+
+    // Last sample at or before the timestamp
+    int low = 0;
+    int high = size - 1;
+    while (low < high) {
+      int mid = (low + high + 1) >>> 1;
+      if (timestamps[physical(mid)] <= timestamp) {
+        low = mid;
+      } else {
+        high = mid - 1;
+      }
+    }
+    int before = physical(low);
+    int after = physical(low + 1);
+    double span = timestamps[after] - timestamps[before];
+    double t = span > 0.0 ? (timestamp - timestamps[before]) / span : 0.0;
+    out[0] = xs[before] + (xs[after] - xs[before]) * t;
+    out[1] = ys[before] + (ys[after] - ys[before]) * t;
+    out[2] = MathUtil.angleModulus(
+        thetas[before] + MathUtil.angleModulus(thetas[after] - thetas[before]) * t);
+    return true;
+  }
+
+  /** Drops every sample, for example after the pose is reset. */
+  public void clear() {
+    head = 0;
+    size = 0;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  /** Time of the oldest sample, or NaN if empty. */
+  public double getOldestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[head];
+  }
+
+  /** Time of the newest sample, or NaN if empty. */
+  public double getNewestTimestamp() {
+    return size == 0 ? Double.NaN : timestamps[physical(size - 1)];
+  }
+
+  private int physical(int index) {
+    return (head + index) % capacity;
+  }
+
+  private void copy(int slot, double[] out) {
+    out[0] = xs[slot];
+    out[1] = ys[slot];
+    out[2] = thetas[slot];
+  }
+}
@@ -0,0 +1,109 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Threads;
+import frc.robot.Constants;
+
+/**
+ * Opt-in real-time scheduling, on when {@link Constants#REAL_TIME_MODE} is set. A promoted thread
+ * runs under the real-time scheduler, so it preempts every thread that isn't. Background work that
+ * competes with the rest of the normal threads, logging, device configuration and path loading,
+ * is lowered by raising its nice value to {@link Constants#BACKGROUND_NICE}; Java's own thread
+ * priorities are ignored under Linux's default scheduler. Only applied on a real robot; in sim and
+ * replay the main loop would starve the host.
+ */
+public final class RealTime {
+  private static final Path THREAD_SELF = Paths.get("/proc/thread-self");
+  private static final Path TASKS = Paths.get("/proc/self/task");
+  // Linux keeps the first 15 characters of a thread's name, which the JVM sets from the Java name
+  private static final int COMM_LENGTH = 15;
+
+  private RealTime() {}
+
+  /** Whether threads are being promoted and lowered. */
+  public static boolean isEnabled() {
+    return Constants.REAL_TIME_MODE && Constants.currentMode == Constants.Mode.REAL;
+  }
+
+  /**
+   * Moves the calling thread to real-time priority. Does nothing unless {@link #isEnabled()}.
+   * @param priority 1 to 99, higher preempts lower.
+   * @param name Name for the warning if the RIO refuses.
+   */
+  public static void promoteCurrentThread(int priority, String name) {
+    if (!isEnabled()) {
+      return;
+    }
+    if (!Threads.setCurrentThreadPriority(true, priority)) {
+      DriverStation.reportWarning("Could not give " + name + " real-time priority " + priority, false);
+    }
+  }
+
+  /**
+   * Lowers the calling thread to the background nice value. Call once, first thing on the thread.
+   * Does nothing unless {@link #isEnabled()}.
+   * @param name Name for the warning if it can't be lowered.
+   */
+  public static void lowerCurrentThread(String name) {
+    if (!isEnabled()) {
+      return;
+    }
+    try {
+      // Links to <pid>/task/<tid>
+      renice(Files.readSymbolicLink(THREAD_SELF).getFileName().toString(), name);
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not lower " + name + ": " + e.getMessage(), false);
+    }
+  }
+
+  /**
+   * Lowers every running thread whose name starts with a prefix to the background nice value, for
+   * threads started by libraries. Call once. Does nothing unless {@link #isEnabled()}.
+   * @param prefix Start of the thread names, at most 15 characters.
+   */
+  public static void lowerThreads(String prefix) {
+    if (!isEnabled()) {
+      return;
+    }
+    String commPrefix = prefix.length() > COMM_LENGTH ? prefix.substring(0, COMM_LENGTH) : prefix;
+    int lowered = 0;
+    try (DirectoryStream<Path> tasks = Files.newDirectoryStream(TASKS)) {
+      for (Path task : tasks) {
+        String comm = new String(Files.readAllBytes(task.resolve("comm")), StandardCharsets.UTF_8).trim();
+        if (comm.startsWith(commPrefix)) {
+          renice(task.getFileName().toString(), comm);
+          lowered++;
+        }
+      }
+    } catch (IOException e) {
+      DriverStation.reportWarning("Could not lower the " + prefix + " threads: " + e.getMessage(), false);
+      return;
+    }
+    if (lowered == 0) {
+      DriverStation.reportWarning("No " + prefix + " threads to lower", false);
+    }
+  }
+
+  /** Sets one thread's nice value; threads start at 0, so the adjustment is the value. */
+  private static void renice(String tid, String name) throws IOException {
+    Process process = new ProcessBuilder(
+            "renice", "-n", Integer.toString(Constants.BACKGROUND_NICE), "-p", tid)
+        .redirectErrorStream(true)
+        .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+        .start();
+    try {
+      if (process.waitFor() != 0) {
+        DriverStation.reportWarning("renice refused to lower " + name, false);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package frc.lib.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+
+/**
+ * Logs JVM health under "Runtime/": garbage collections and their time each cycle, heap pool
+ * usage, and how many bytes the main thread allocated during the cycle. When a collection lands in
+ * a cycle that overran, the "Runtime/Alerts/GCOverrun" alert is raised and a warning is sent to
+ * the driver station, at most once every {@link #WARNING_INTERVAL_SECS}.
+ *
+ * <p>Collection times are what the collectors report, which for the young generation is the pause.
+ * Pool usage is sampled every few cycles since reading it allocates. Main thread only.
+ */
+public final class RuntimeMonitor {
+  private static final int POOL_PERIOD_CYCLES = 10;
+  private static final double WARNING_INTERVAL_SECS = 10.0;
+  private static final double BYTES_PER_MB = 1024.0 * 1024.0;
+  private static final String ROOT = "Runtime/";
+
+  private static final GarbageCollectorMXBean[] collectors =
+      ManagementFactory.getGarbageCollectorMXBeans().toArray(new GarbageCollectorMXBean[0]);
+  private static final MemoryPoolMXBean[] heapPools;
+  private static final String[] poolKeys;
+  private static final com.sun.management.ThreadMXBean allocationBean;
+
+  private static long mainThreadId = -1;
+  private static long lastCollections = -1;
+  private static long lastCollectionMillis = 0;
+  private static long lastAllocatedBytes = -1;
+  private static long overrunCollections = 0;
+  private static double lastWarningSecs = Double.NEGATIVE_INFINITY;
+  private static int cycle = 0;
+
+  static {
+    List<MemoryPoolMXBean> pools = new ArrayList<>();
+    for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        pools.add(pool);
+      }
+    }
+    heapPools = pools.toArray(new MemoryPoolMXBean[0]);
+    poolKeys = new String[heapPools.length];
+    for (int i = 0; i < heapPools.length; i++) {
+      poolKeys[i] = ROOT + "Heap/" + heapPools[i].getName() + "/UsedMB";
+    }
+
+    ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    if (threads instanceof com.sun.management.ThreadMXBean
+        && ((com.sun.management.ThreadMXBean) threads).isThreadAllocatedMemorySupported()) {
+      allocationBean = (com.sun.management.ThreadMXBean) threads;
+      allocationBean.setThreadAllocatedMemoryEnabled(true);
+    } else {
+      allocationBean = null;
+    }
+  }
+
+  private RuntimeMonitor() {}
+
+  /**
+   * Run every cycle by Diagnostics, first, so the numbers cover the same cycle
+   * {@link LoopTimings#beginCycle()} just closed.
+   */
+  public static void periodic() {
+    if (mainThreadId < 0) {
+      mainThreadId = Thread.currentThread().getId();
+    }
+    sampleCollections();
+    sampleAllocation();
+    if (++cycle >= POOL_PERIOD_CYCLES) {
+      cycle = 0;
+      sampleHeap();
+    }
+  }
+
+  private static void sampleCollections() {
+    long collections = 0;
+    long collectionMillis = 0;
+    for (GarbageCollectorMXBean collector : collectors) {
+      // -1 when a collector doesn't report
+      collections += Math.max(0, collector.getCollectionCount());
+      collectionMillis += Math.max(0, collector.getCollectionTime());
+    }
+    long cycleCollections = lastCollections < 0 ? 0 : collections - lastCollections;
+    long cycleMillis = lastCollections < 0 ? 0 : collectionMillis - lastCollectionMillis;
+    lastCollections = collections;
+    lastCollectionMillis = collectionMillis;
+
+    boolean overrun = cycleCollections > 0 && LoopTimings.didLastCycleOverrun();
+    if (overrun) {
+      overrunCollections++;
+      double now = Logger.getInstance().getRealTimestamp() / 1.0e6;
+      if (now - lastWarningSecs >= WARNING_INTERVAL_SECS) {
+        lastWarningSecs = now;
+        DriverStation.reportWarning(String.format("Loop overrun (%.1f ms) during a %d ms garbage collection",
+            LoopTimings.getLastCycleNanos() / 1.0e6, cycleMillis), false);
+      }
+    }
+
+    Logger.getInstance().recordOutput(ROOT + "GC/Count", collections);
+    Logger.getInstance().recordOutput(ROOT + "GC/CycleCount", cycleCollections);
+    Logger.getInstance().recordOutput(ROOT + "GC/CycleMS", cycleMillis);
+    Logger.getInstance().recordOutput(ROOT + "GC/TotalMS", collectionMillis);
+    Logger.getInstance().recordOutput(ROOT + "Alerts/GCOverrun", overrun);
+    Logger.getInstance().recordOutput(ROOT + "Alerts/GCOverrunCount", overrunCollections);
+  }
+
+  private static void sampleAllocation() {
+    if (allocationBean == null) {
+      return;
+    }
+    long allocated = allocationBean.getThreadAllocatedBytes(mainThreadId);
+    if (allocated < 0) {
+      return;
+    }
+    long cycleBytes = lastAllocatedBytes < 0 ? 0 : allocated - lastAllocatedBytes;
+    lastAllocatedBytes = allocated;
+    Logger.getInstance().recordOutput(ROOT + "MainThread/AllocatedKBPerCycle", cycleBytes / 1024.0);
+  }
+
+  private static void sampleHeap() {
+    long used = 0;
+    long committed = 0;
+    for (int i = 0; i < heapPools.length; i++) {
+      MemoryUsage usage = heapPools[i].getUsage();
+      if (usage == null) {
+        continue;
+      }
+      used += usage.getUsed();
+      committed += usage.getCommitted();
+      Logger.getInstance().recordOutput(poolKeys[i], usage.getUsed() / BYTES_PER_MB);
+    }
+    Logger.getInstance().recordOutput(ROOT + "Heap/UsedMB", used / BYTES_PER_MB);
+    Logger.getInstance().recordOutput(ROOT + "Heap/CommittedMB", committed / BYTES_PER_MB);
+  }
+}
@@ -0,0 +1,137 @@
+package frc.lib.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A trajectory sampled at a fixed time step and stored as fixed-stride doubles, written at build
+ * time by {@link frc.robot.TrajectoryExporter} and memory-mapped on the robot. Loading is one
+ * mmap and a header check, and {@link #sample(double, double[])} interpolates between two rows
+ * without allocating.
+ *
+ * <p>The file is little-endian: a header of magic, version, stride and sample count as ints, then
+ * sample step, total time, max velocity and max acceleration as doubles, then the samples. Each
+ * sample is the fields below in order, angles in radians.
+ */
+public final class SampledTrajectory {
+  /** Field x in meters. */
+  public static final int X = 0;
+  /** Field y in meters. */
+  public static final int Y = 1;
+  /** Direction of travel. */
+  public static final int HEADING = 2;
+  /** Speed along the heading in meters per second. */
+  public static final int VELOCITY = 3;
+  /** Direction the robot faces. */
+  public static final int HOLONOMIC_ROTATION = 4;
+  /** Rate of the holonomic rotation in radians per second. */
+  public static final int HOLONOMIC_ANGULAR_VELOCITY = 5;
+  public static final int STRIDE = 6;
+
+  public static final String EXTENSION = ".traj";
+  private static final int MAGIC = 0x54524A31; // "TRJ1"
+  private static final int VERSION = 1;
+  private static final int HEADER_BYTES = 4 * Integer.BYTES + 4 * Double.BYTES;
+
+  private final DoubleBuffer samples;
+  private final int count;
+  private final double sampleDt;
+  private final double totalTimeSecs;
+  private final double maxVelocity;
+  private final double maxAcceleration;
+
+  private SampledTrajectory(ByteBuffer buffer) throws IOException {
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+        || buffer.getInt(8) != STRIDE) {
+      throw new IOException("Not a version " + VERSION + " sampled trajectory");
+    }
+    count = buffer.getInt(12);
+    sampleDt = buffer.getDouble(16);
+    totalTimeSecs = buffer.getDouble(24);
+    maxVelocity = buffer.getDouble(32);
+    maxAcceleration = buffer.getDouble(40);
+    if (count < 1 || !(sampleDt > 0.0)
+        || buffer.capacity() != HEADER_BYTES + (long) count * STRIDE * Double.BYTES) {
+      throw new IOException("Sampled trajectory is truncated or has a bad header");
+    }
+    buffer.position(HEADER_BYTES);
+    samples = buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer();
+  }
+
+  /**
+   * Maps a trajectory file read-only.
+   * @throws IOException If it can't be read or isn't a trajectory of this version.
+   */
+  public static SampledTrajectory map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      // The mapping stays valid after the channel closes
+      return new SampledTrajectory(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes a trajectory file.
+   * @param samples count * {@link #STRIDE} values, sample i at time i * sampleDt.
+   * @param sampleDt Time between samples in seconds.
+   * @param totalTimeSecs Length of the trajectory; the last sample is at this time.
+   * @param maxVelocity Max velocity it was generated with, checked by the loader.
+   * @param maxAcceleration Max acceleration it was generated with, checked by the loader.
+   */
+  public static void write(Path file, double[] samples, double sampleDt, double totalTimeSecs,
+      double maxVelocity, double maxAcceleration) throws IOException {
+    if (samples.length == 0 || samples.length % STRIDE != 0) {
+      throw new IllegalArgumentException("Samples must be a whole number of rows of " + STRIDE);
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + samples.length * Double.BYTES)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(MAGIC).putInt(VERSION).putInt(STRIDE).putInt(samples.length / STRIDE);
+    buffer.putDouble(sampleDt).putDouble(totalTimeSecs).putDouble(maxVelocity).putDouble(maxAcceleration);
+    buffer.asDoubleBuffer().put(samples);
+    Files.write(file, buffer.array());
+  }
+
+  public double getTotalTimeSeconds() {
+    return totalTimeSecs;
+  }
+
+  public double getMaxVelocity() {
+    return maxVelocity;
+  }
+
+  public double getMaxAcceleration() {
+    return maxAcceleration;
+  }
+
+  /**
+   * Interpolates the state at a time, clamped to the trajectory. Angles take the short way.
+   * @param out Receives {@link #STRIDE} values at the field indexes.
+   */
+  public void sample(double timeSecs, double[] out) {
+    double position = Math.max(0.0, Math.min(timeSecs, totalTimeSecs)) / sampleDt;
+    int row = (int) position;
+    if (row >= count - 1) {
+      int base = (count - 1) * STRIDE;
+      for (int field = 0; field < STRIDE; field++) {
+        out[field] = samples.get(base + field);
+      }
+      return;
+    }
+    double fraction = position - row;
+    int base = row * STRIDE;
+    for (int field = 0; field < STRIDE; field++) {
+      double from = samples.get(base + field);
+      double to = samples.get(base + STRIDE + field);
+      double delta = field == HEADING || field == HOLONOMIC_ROTATION
+          ? Math.IEEEremainder(to - from, 2.0 * Math.PI)
+          : to - from;
+      out[field] = from + delta * fraction;
+    }
+  }
+}
@@ -0,0 +1,76 @@
+package frc.lib.util;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.revrobotics.CANSparkMax.ControlType;
+
+/**
+ * Remembers the last setpoint sent to one Spark Max so an unchanged one isn't sent again. A
+ * setpoint is resent when the control type changes, the reference or feedforward moves past the
+ * tolerance, or {@link #REFRESH_SECS} has passed, so a controller that rebooted or missed a frame
+ * picks the setpoint back up.
+ *
+ * <p>Sent and skipped counts across every cache are logged under "CAN/Setpoints/" by
+ * {@link #periodic()}. Each cache must only be used by one thread at a time; the drivetrain's
+ * lock covers the module controllers.
+ */
+public class SparkSetpointCache {
+  /** Longest an unchanged setpoint goes without being resent. */
+  public static final double REFRESH_SECS = 0.1;
+  private static final double FF_TOLERANCE_VOLTS = 0.01;
+  private static final String ROOT = "CAN/Setpoints/";
+
+  // Written under the callers' locks, read by periodic on the main thread
+  private static volatile long sentCount = 0;
+  private static volatile long skippedCount = 0;
+
+  private final double tolerance;
+  private ControlType lastType = null;
+  private double lastReference = 0.0;
+  private double lastFFVolts = 0.0;
+  private double lastSentSecs = 0.0;
+
+  /** @param tolerance How far the reference can move, in its own units, before it's resent. */
+  public SparkSetpointCache(double tolerance) {
+    this.tolerance = tolerance;
+  }
+
+  /**
+   * Whether this setpoint has to be sent. If so it's recorded as sent, so only call this right
+   * before sending it.
+   * @param type The control type.
+   * @param reference The reference, in the control type's units.
+   * @param ffVolts The arbitrary feedforward in volts, 0 if there is none.
+   */
+  public boolean shouldSend(ControlType type, double reference, double ffVolts) {
+    double now = Logger.getInstance().getRealTimestamp() / 1.0e6;
+    if (type == lastType
+        && Math.abs(reference - lastReference) <= tolerance
+        && Math.abs(ffVolts - lastFFVolts) <= FF_TOLERANCE_VOLTS
+        && now - lastSentSecs < REFRESH_SECS) {
+      skippedCount++;
+      return false;
+    }
+    lastType = type;
+    lastReference = reference;
+    lastFFVolts = ffVolts;
+    lastSentSecs = now;
+    sentCount++;
+    return true;
+  }
+
+  /** Forgets the last setpoint so the next one is always sent. */
+  public void invalidate() {
+    lastType = null;
+  }
+
+  /** Logs the counts. Run every cycle by Diagnostics. */
+  public static void periodic() {
+    long sent = sentCount;
+    long skipped = skippedCount;
+    long total = sent + skipped;
+    Logger.getInstance().recordOutput(ROOT + "Sent", sent);
+    Logger.getInstance().recordOutput(ROOT + "Skipped", skipped);
+    Logger.getInstance().recordOutput(ROOT + "SavedPercent", total > 0 ? skipped * 100.0 / total : 0.0);
+  }
+}
@@ -0,0 +1,204 @@
+package frc.lib.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.ctre.phoenix.sensors.CANCoder;
+import com.ctre.phoenix.sensors.CANCoderStatusFrame;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.CANSparkMaxLowLevel.PeriodicFrame;
+
+import frc.robot.Constants;
+
+/**
+ * Switches CAN status frame periods with the robot mode. While disabled the swerve devices report
+ * slowly, in autonomous the position frames run fast for odometry, and in test everything reports
+ * at the default rate for diagnostics. A high-rate odometry consumer can also ask for faster
+ * position frames while enabled.
+ *
+ * <p>Devices register once with the future from their {@link DeviceConfigurator} config, and a
+ * profile is only applied to a device after it has finished configuring. The frame writes run on a
+ * single background thread so mode changes don't block the main loop. The estimated bus load of
+ * every profile is logged whenever the profile changes.
+ */
+public final class StatusFrameScheduler {
+  /** What a registered device is used for, which decides how fast it has to report. */
+  public enum Role {
+    DRIVE,
+    TURN,
+    ABSOLUTE_ENCODER
+  }
+
+  /**
+   * Frame periods in milliseconds. Spark Max roles list Status0 (output, faults), Status1
+   * (velocity, temperature, current), Status2 (position) and Status3 (analog); the CANCoder lists
+   * SensorData and VbatAndFaults.
+   */
+  public enum Profile {
+    DISABLED(new int[] {500, 200, 200, 500}, new int[] {500, 500, 200, 500}, new int[] {100, 255}, false),
+    AUTONOMOUS(new int[] {100, 20, 10, 500}, new int[] {100, 500, 10, 500}, new int[] {100, 255}, true),
+    TELEOP(new int[] {100, 20, 20, 500}, new int[] {100, 500, 20, 500}, new int[] {100, 255}, true),
+    TEST(new int[] {20, 20, 20, 50}, new int[] {20, 20, 20, 50}, new int[] {10, 100}, true);
+
+    final int[] drive;
+    final int[] turn;
+    final int[] absoluteEncoder;
+    final boolean enabled;
+    final String loadKey;
+
+    Profile(int[] drive, int[] turn, int[] absoluteEncoder, boolean enabled) {
+      this.drive = drive;
+      this.turn = turn;
+      this.absoluteEncoder = absoluteEncoder;
+      this.enabled = enabled;
+      loadKey = ROOT + "Profiles/" + name() + "/EstimatedLoadPercent";
+    }
+  }
+
+  private static final String ROOT = "CAN/StatusFrames/";
+  private static final int STATUS2 = 2;
+  // Shortest position frame period an odometry consumer can ask for
+  private static final int MIN_POSITION_PERIOD_MS = 5;
+  // Extended 8 byte frame is 131 bits before bit stuffing, call it 135 on average
+  private static final double BITS_PER_FRAME = 135.0;
+  private static final double BUS_BITS_PER_SEC = 1.0e6;
+  // Every Spark also gets a setpoint frame each loop while enabled
+  private static final double SETPOINT_FRAMES_PER_SEC = 1.0 / Constants.LOOP_PERIOD_SECS;
+
+  private static final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(() -> {
+      RealTime.lowerCurrentThread("StatusFrameScheduler");
+      runnable.run();
+    }, "StatusFrameScheduler");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    return thread;
+  });
+
+  private static final List<Runnable> appliers = new ArrayList<>();
+  private static final int[] roleCounts = new int[Role.values().length];
+  private static final int[] periods = new int[4];
+
+  private static volatile Profile profile = Profile.DISABLED;
+  private static volatile double odometryHz = 0.0;
+
+  private StatusFrameScheduler() {}
+
+  /**
+   * Registers a Spark Max. The current profile is applied once its configuration completes.
+   * @param motor The motor controller.
+   * @param role Whether it drives or turns a module.
+   * @param configured The future from {@link DeviceConfigurator#submit(DeviceConfig)}.
+   */
+  public static synchronized void register(CANSparkMax motor, Role role, CompletableFuture<?> configured) {
+    register(role, configured, () -> apply(motor, role));
+  }
+
+  /**
+   * Registers a CANCoder. The current profile is applied once its configuration completes.
+   * @param encoder The absolute encoder.
+   * @param configured The future from {@link DeviceConfigurator#submit(DeviceConfig)}.
+   */
+  public static synchronized void register(CANCoder encoder, CompletableFuture<?> configured) {
+    register(Role.ABSOLUTE_ENCODER, configured, () -> apply(encoder));
+  }
+
+  private static void register(Role role, CompletableFuture<?> configured, Runnable applier) {
+    roleCounts[role.ordinal()]++;
+    Runnable queue = () -> configured.thenRunAsync(applier, executor);
+    appliers.add(queue);
+    queue.run();
+  }
+
+  /** Switches every registered device to the profile. Call from the mode init methods. */
+  public static synchronized void setProfile(Profile newProfile) {
+    profile = newProfile;
+    applyAll();
+  }
+
+  /**
+   * Asks for position frames fast enough for an odometry consumer while enabled.
+   * @param hz The consumer's sample rate, or 0 when it stops.
+   */
+  public static synchronized void setOdometryRate(double hz) {
+    odometryHz = hz;
+    applyAll();
+  }
+
+  private static void applyAll() {
+    // Each applier reads the profile when it runs, so queued writes always land on the latest one
+    for (Runnable applier : appliers) {
+      applier.run();
+    }
+
+    Logger.getInstance().recordOutput(ROOT + "Profile", profile.name());
+    Logger.getInstance().recordOutput(ROOT + "EstimatedLoadPercent", estimateLoadPercent(profile));
+    for (Profile each : Profile.values()) {
+      Logger.getInstance().recordOutput(each.loadKey, estimateLoadPercent(each));
+    }
+  }
+
+  /**
+   * Estimated share of a 1 Mbit/s bus used by the registered devices' status and setpoint frames
+   * under a profile. Other devices on the bus aren't counted.
+   */
+  public static synchronized double estimateLoadPercent(Profile profile) {
+    double framesPerSec = 0.0;
+    for (Role role : Role.values()) {
+      int count = roleCounts[role.ordinal()];
+      int[] rolePeriods = framePeriods(profile, role, new int[4]);
+      for (int period : rolePeriods) {
+        if (period > 0) {
+          framesPerSec += count * 1000.0 / period;
+        }
+      }
+      if (profile.enabled && role != Role.ABSOLUTE_ENCODER) {
+        framesPerSec += count * SETPOINT_FRAMES_PER_SEC;
+      }
+    }
+    return framesPerSec * BITS_PER_FRAME / BUS_BITS_PER_SEC * 100.0;
+  }
+
+  /** Fills out with the role's periods under the profile, with odometry demand applied. */
+  private static int[] framePeriods(Profile profile, Role role, int[] out) {
+    switch (role) {
+      case DRIVE:
+        System.arraycopy(profile.drive, 0, out, 0, 4);
+        break;
+      case TURN:
+        System.arraycopy(profile.turn, 0, out, 0, 4);
+        break;
+      default:
+        System.arraycopy(profile.absoluteEncoder, 0, out, 0, 2);
+        out[2] = 0;
+        out[3] = 0;
+        return out;
+    }
+    double hz = odometryHz;
+    if (profile.enabled && hz > 0.0) {
+      int demand = Math.max(MIN_POSITION_PERIOD_MS, (int) Math.round(1000.0 / hz));
+      out[STATUS2] = Math.min(out[STATUS2], demand);
+    }
+    return out;
+  }
+
+  // Only called on the executor thread, which is the only user of periods
+  private static void apply(CANSparkMax motor, Role role) {
+    framePeriods(profile, role, periods);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus0, periods[0]);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus1, periods[1]);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus2, periods[2]);
+    motor.setPeriodicFramePeriod(PeriodicFrame.kStatus3, periods[3]);
+  }
+
+  private static void apply(CANCoder encoder) {
+    framePeriods(profile, Role.ABSOLUTE_ENCODER, periods);
+    encoder.setStatusFramePeriod(CANCoderStatusFrame.SensorData, periods[0]);
+    encoder.setStatusFramePeriod(CANCoderStatusFrame.VbatAndFaults, periods[1]);
+  }
+}
@@ -0,0 +1,153 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Primitive versions of the WPILib swerve math used every loop. Everything works on caller-owned
+ * arrays so the drive path does not allocate ChassisSpeeds, SwerveModuleState or Rotation2d
+ * objects. Angles are in degrees to match the turn motor's position conversion factor.
+ */
+public final class SwerveMath {
+  private SwerveMath() {}
+
+  /**
+   * Converts field relative speeds to robot relative speeds, the same as
+   * ChassisSpeeds.fromFieldRelativeSpeeds.
+   *
+   * @param vx Field relative x speed in meters per second.
+   * @param vy Field relative y speed in meters per second.
+   * @param omega Angular speed in radians per second.
+   * @param yawRadians Current robot heading in radians.
+   * @param out Receives {vx, vy, omega} robot relative.
+   */
+  public static void fromFieldRelative(
+      double vx, double vy, double omega, double yawRadians, double[] out) {
+    double cos = Math.cos(yawRadians);
+    double sin = Math.sin(yawRadians);
+    out[0] = vx * cos + vy * sin;
+    out[1] = -vx * sin + vy * cos;
+    out[2] = omega;
+  }
+
+  /**
+   * Discretizes chassis speeds over one loop, the same as taking the twist log of the pose the
+   * speeds would reach in dt. Driving the result for dt along a constant-curvature arc lands on
+   * that pose, which removes the skew from translating and rotating at once.
+   *
+   * @param vx Robot relative x speed in meters per second.
+   * @param vy Robot relative y speed in meters per second.
+   * @param omega Angular speed in radians per second.
+   * @param dt The loop period in seconds.
+   * @param out Receives the discretized {vx, vy, omega}. May be the array the inputs came from.
+   */
+  public static void discretize(double vx, double vy, double omega, double dt, double[] out) {
+    double dtheta = omega * dt;
+    double halfDtheta = dtheta / 2.0;
+    double cosMinusOne = Math.cos(dtheta) - 1.0;
+    double halfThetaByTanOfHalfDtheta = Math.abs(cosMinusOne) < 1e-9
+        ? 1.0 - dtheta * dtheta / 12.0
+        : -(halfDtheta * Math.sin(dtheta)) / cosMinusOne;
+    double dx = vx * dt;
+    double dy = vy * dt;
+    out[0] = (dx * halfThetaByTanOfHalfDtheta + dy * halfDtheta) / dt;
+    out[1] = (dy * halfThetaByTanOfHalfDtheta - dx * halfDtheta) / dt;
+    out[2] = omega;
+  }
+
+  /**
+   * Inverse kinematics, the same as SwerveDriveKinematics.toSwerveModuleStates. When the robot is
+   * not moving the previous angles in anglesOut are kept so the modules do not snap back to zero.
+   *
+   * @param vx Robot relative x speed in meters per second.
+   * @param vy Robot relative y speed in meters per second.
+   * @param omega Angular speed in radians per second.
+   * @param moduleX Module x locations in meters.
+   * @param moduleY Module y locations in meters.
+   * @param speedsOut Receives the module speeds in meters per second.
+   * @param anglesOut Receives the module angles in degrees.
+   */
+  public static void toModuleStates(
+      double vx, double vy, double omega, double[] moduleX, double[] moduleY,
+      double[] speedsOut, double[] anglesOut) {
+    if (vx == 0.0 && vy == 0.0 && omega == 0.0) {
+      for (int i = 0; i < speedsOut.length; i++) {
+        speedsOut[i] = 0.0;
+      }
+      return;
+    }
+
+    for (int i = 0; i < speedsOut.length; i++) {
+      double x = vx - omega * moduleY[i];
+      double y = vy + omega * moduleX[i];
+      speedsOut[i] = Math.hypot(x, y);
+      anglesOut[i] = Math.toDegrees(Math.atan2(y, x));
+    }
+  }
+
+  /**
+   * Second-order term of the inverse kinematics: how fast each module has to steer, relative to
+   * the chassis, to hold a constant field relative velocity while the robot rotates. The robot
+   * relative velocity turns at -omega, so each module's velocity vector turns with it.
+   *
+   * @param vx Robot relative x speed in meters per second.
+   * @param vy Robot relative y speed in meters per second.
+   * @param omega Angular speed in radians per second.
+   * @param moduleX Module x locations in meters.
+   * @param moduleY Module y locations in meters.
+   * @param ratesOut Receives each module's steering rate in radians per second.
+   */
+  public static void toModuleSteerRates(
+      double vx, double vy, double omega, double[] moduleX, double[] moduleY, double[] ratesOut) {
+    double ax = omega * vy;
+    double ay = -omega * vx;
+    for (int i = 0; i < ratesOut.length; i++) {
+      double x = vx - omega * moduleY[i];
+      double y = vy + omega * moduleX[i];
+      double speedSquared = x * x + y * y;
+      ratesOut[i] = speedSquared > 1e-9 ? (x * ay - y * ax) / speedSquared : 0.0;
+    }
+  }
+
+  /**
+   * Scales every module speed down evenly so none exceed the max, the same as
+   * SwerveDriveKinematics.desaturateWheelSpeeds.
+   *
+   * @param speeds Module speeds in meters per second, modified in place.
+   * @param maxSpeed The max speed a module can reach.
+   * @return The scale applied, 1 if none of the speeds were too fast.
+   */
+  public static double desaturate(double[] speeds, double maxSpeed) {
+    double realMax = 0.0;
+    for (double speed : speeds) {
+      realMax = Math.max(realMax, Math.abs(speed));
+    }
+    if (realMax > maxSpeed) {
+      double scale = maxSpeed / realMax;
+      for (int i = 0; i < speeds.length; i++) {
+        speeds[i] *= scale;
+      }
+      return scale;
+    }
+    return 1.0;
+  }
+
+  /**
+   * Whether a module should drive backwards instead of turning more than 90 degrees, the check
+   * inside SwerveModuleState.optimize.
+   *
+   * @param targetDegrees The desired module angle.
+   * @param currentDegrees The measured module angle.
+   */
+  public static boolean shouldReverse(double targetDegrees, double currentDegrees) {
+    return Math.abs(MathUtil.inputModulus(targetDegrees - currentDegrees, -180.0, 180.0)) > 90.0;
+  }
+
+  /**
+   * Flips an angle by 180 degrees, wrapped to [-180, 180).
+   *
+   * @param degrees The angle to flip.
+   */
+  public static double reverse(double degrees) {
+    return MathUtil.inputModulus(degrees + 180.0, -180.0, 180.0);
+  }
+}
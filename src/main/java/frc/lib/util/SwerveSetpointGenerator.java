@@ -0,0 +1,188 @@
+package frc.lib.util;
+
+import edu.wpi.first.math.MathUtil;
+
+/**
+ * Limits how fast the drive setpoint can change so every module can actually follow it. Each call
+ * moves from the previous setpoint toward the requested chassis speeds, as far along that line as
+ * possible without any module's velocity changing faster than its acceleration limit or any moving
+ * module steering faster than its steering limit.
+ *
+ * <p>Module velocities are linear in the chassis speeds, so the acceleration limit has a closed
+ * form; the steering limit is found by bisection. A module may flip its drive direction instead of
+ * steering past 90 degrees, and a module that is barely moving may point anywhere, so starting
+ * from rest is only limited by acceleration. Works on caller-owned arrays like {@link SwerveMath}.
+ *
+ * <p>Times should come from the same clock on every call; on the main loop use the logged cycle
+ * time so replay steps the same way the robot did.
+ */
+public class SwerveSetpointGenerator {
+  private static final int SEARCH_ITERATIONS = 10;
+  // Below this a module's heading is noise and isn't held to the steering limit
+  private static final double MIN_STEER_SPEED = 0.05;
+  private static final double MIN_DT = 0.001;
+  // Longer than this between calls and the previous setpoint no longer describes the robot
+  private static final double MAX_GAP_SECS = 0.1;
+
+  private final double[] moduleX;
+  private final double[] moduleY;
+  private final double maxModuleSpeed;
+  private final double maxAcceleration;
+  private final double maxSteerRate;
+  private final double nominalDtSecs;
+
+  private final double[] previous = new double[3];
+  private final double[] previousX;
+  private final double[] previousY;
+  private final double[] deltaX;
+  private final double[] deltaY;
+  private double lastTimeSecs = Double.NaN;
+  // The first step after a reset has no previous call to measure from
+  private boolean justReset = false;
+
+  /**
+   * @param moduleX Module x locations in meters.
+   * @param moduleY Module y locations in meters.
+   * @param maxModuleSpeed Fastest a module can drive, in meters per second.
+   * @param maxAcceleration Fastest a module's velocity can change, in meters per second squared.
+   * @param maxSteerRate Fastest a module can steer, in radians per second.
+   * @param nominalDtSecs How often the caller normally generates, used for the first step after a
+   *     reset.
+   */
+  public SwerveSetpointGenerator(double[] moduleX, double[] moduleY, double maxModuleSpeed,
+      double maxAcceleration, double maxSteerRate, double nominalDtSecs) {
+    this.moduleX = moduleX;
+    this.moduleY = moduleY;
+    this.maxModuleSpeed = maxModuleSpeed;
+    this.maxAcceleration = maxAcceleration;
+    this.maxSteerRate = maxSteerRate;
+    this.nominalDtSecs = nominalDtSecs;
+    previousX = new double[moduleX.length];
+    previousY = new double[moduleX.length];
+    deltaX = new double[moduleX.length];
+    deltaY = new double[moduleX.length];
+  }
+
+  /**
+   * Whether the previous setpoint is stale, because nothing has been generated yet, the drive was
+   * commanded some other way, or too long has passed. Reset from the measured speeds if so.
+   * @param nowSecs The current time in seconds.
+   */
+  public boolean needsReset(double nowSecs) {
+    return Double.isNaN(lastTimeSecs) || nowSecs - lastTimeSecs > MAX_GAP_SECS;
+  }
+
+  /**
+   * Starts again from the given robot relative speeds, normally the measured ones. The next
+   * elapsed-time step is a nominal period long.
+   * @param nowSecs The current time in seconds.
+   */
+  public void reset(double vx, double vy, double omega, double nowSecs) {
+    previous[0] = vx;
+    previous[1] = vy;
+    previous[2] = omega;
+    lastTimeSecs = nowSecs;
+    justReset = true;
+  }
+
+  /** Marks the previous setpoint stale. Call when the modules are commanded without this generator. */
+  public void invalidate() {
+    lastTimeSecs = Double.NaN;
+  }
+
+  /**
+   * Replaces the requested robot relative speeds with the next feasible setpoint, stepping by the
+   * time since the last call, or a nominal period right after a reset.
+   * @param nowSecs The current time in seconds.
+   * @param speeds The requested {vx, vy, omega}, overwritten with the setpoint.
+   * @return How far toward the request the setpoint got, 0 to 1.
+   */
+  public double generate(double nowSecs, double[] speeds) {
+    return generate(nowSecs, justReset ? nominalDtSecs : nowSecs - lastTimeSecs, speeds);
+  }
+
+  /**
+   * Replaces the requested robot relative speeds with the next feasible setpoint, stepping by a
+   * given time. For callers on their own fixed-rate loop.
+   * @param nowSecs The current time in seconds, only used to tell when the setpoint goes stale.
+   * @param dtSecs How long this setpoint will be held, in seconds.
+   * @param speeds The requested {vx, vy, omega}, overwritten with the setpoint.
+   * @return How far toward the request the setpoint got, 0 to 1.
+   */
+  public double generate(double nowSecs, double dtSecs, double[] speeds) {
+    double dt = MathUtil.clamp(dtSecs, MIN_DT, MAX_GAP_SECS);
+    lastTimeSecs = nowSecs;
+    justReset = false;
+
+    // Scale the request down evenly if it asks any module for more than it has
+    double fastest = 0.0;
+    for (int i = 0; i < moduleX.length; i++) {
+      fastest = Math.max(fastest, Math.hypot(
+          speeds[0] - speeds[2] * moduleY[i], speeds[1] + speeds[2] * moduleX[i]));
+    }
+    if (fastest > maxModuleSpeed) {
+      double scale = maxModuleSpeed / fastest;
+      speeds[0] *= scale;
+      speeds[1] *= scale;
+      speeds[2] *= scale;
+    }
+
+    double dvx = speeds[0] - previous[0];
+    double dvy = speeds[1] - previous[1];
+    double domega = speeds[2] - previous[2];
+    double maxVelocityStep = maxAcceleration * dt;
+    double fraction = 1.0;
+    for (int i = 0; i < moduleX.length; i++) {
+      previousX[i] = previous[0] - previous[2] * moduleY[i];
+      previousY[i] = previous[1] + previous[2] * moduleX[i];
+      deltaX[i] = dvx - domega * moduleY[i];
+      deltaY[i] = dvy + domega * moduleX[i];
+      double step = Math.hypot(deltaX[i], deltaY[i]);
+      if (step * fraction > maxVelocityStep) {
+        fraction = maxVelocityStep / step;
+      }
+    }
+
+    // The start of the line is always feasible, so the bisection only ever keeps feasible points
+    double maxSteerStep = maxSteerRate * dt;
+    if (!canSteer(fraction, maxSteerStep)) {
+      double low = 0.0;
+      double high = fraction;
+      for (int n = 0; n < SEARCH_ITERATIONS; n++) {
+        double mid = (low + high) / 2.0;
+        if (canSteer(mid, maxSteerStep)) {
+          low = mid;
+        } else {
+          high = mid;
+        }
+      }
+      fraction = low;
+    }
+
+    previous[0] += dvx * fraction;
+    previous[1] += dvy * fraction;
+    previous[2] += domega * fraction;
+    speeds[0] = previous[0];
+    speeds[1] = previous[1];
+    speeds[2] = previous[2];
+    return fraction;
+  }
+
+  private boolean canSteer(double fraction, double maxSteerStep) {
+    for (int i = 0; i < moduleX.length; i++) {
+      double fromX = previousX[i];
+      double fromY = previousY[i];
+      double toX = fromX + deltaX[i] * fraction;
+      double toY = fromY + deltaY[i] * fraction;
+      if (Math.hypot(fromX, fromY) < MIN_STEER_SPEED || Math.hypot(toX, toY) < MIN_STEER_SPEED) {
+        continue;
+      }
+      double angle = Math.abs(Math.atan2(fromX * toY - fromY * toX, fromX * toX + fromY * toY));
+      // Flipping the drive direction turns a steer of more than 90 degrees into less
+      if (Math.min(angle, Math.PI - angle) > maxSteerStep) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
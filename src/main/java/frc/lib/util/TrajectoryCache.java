@@ -0,0 +1,195 @@
+package frc.lib.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+import edu.wpi.first.wpilibj.RobotBase;
+import frc.robot.Constants;
+
+/**
+ * Generated PathPlanner trajectories, keyed by path name and constraints. {@link #preloadAll()}
+ * parses and generates every path in deploy/pathplanner on a background thread at startup, so
+ * building an auto later is a map lookup instead of JSON parsing and trajectory generation.
+ *
+ * <p>Paths generated with the robot's constraints are also paired with the
+ * {@link SampledTrajectory} the build wrote for them, which the follower samples instead. The
+ * generated trajectory is still what carries the path's event markers and stop events.
+ *
+ * <p>Only the top level of deploy/pathplanner is scanned; that's where the PathPlanner 2023 app
+ * saves the paths this library version can read.
+ */
+public class TrajectoryCache {
+  private static final String PATH_EXTENSION = ".path";
+  private static final File directory = new File(Filesystem.getDeployDirectory(), "pathplanner");
+  // Deployed next to the paths on the robot, read from the build output off it
+  private static final File sampledDirectory = RobotBase.isReal()
+      ? new File(Filesystem.getDeployDirectory(), "trajectories")
+      : new File(Filesystem.getOperatingDirectory(), "build/trajectories");
+
+  private final PathConstraints defaultConstraints;
+  private final Map<String, PathPlannerTrajectory> trajectories = new ConcurrentHashMap<>();
+  // Trajectory doesn't compare by identity, and two paths can generate equal ones
+  private final Map<PathPlannerTrajectory, SampledTrajectory> sampled =
+      Collections.synchronizedMap(new IdentityHashMap<>());
+  private final List<String> pathNames;
+  private volatile boolean preloaded = false;
+  // Written by the preload thread before preloaded is set, logged from the main thread
+  private int preloadCount = 0;
+  private double preloadMillis = 0.0;
+  private boolean preloadLogged = false;
+
+  /** @param defaultConstraints The constraints paths are generated with unless a caller asks otherwise. */
+  public TrajectoryCache(PathConstraints defaultConstraints) {
+    this.defaultConstraints = defaultConstraints;
+    pathNames = listPaths();
+  }
+
+  /** The constraints paths are generated with, on the robot and by the build. */
+  public static PathConstraints robotConstraints() {
+    return new PathConstraints(Constants.PATH_MAX_VELOCITY, Constants.PATH_MAX_ACCELERATION);
+  }
+
+  /** Names of every path in deploy/pathplanner, sorted. */
+  public static List<String> listPaths() {
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(PATH_EXTENSION));
+    List<String> names = new ArrayList<>();
+    if (files != null) {
+      for (File file : files) {
+        String name = file.getName();
+        names.add(name.substring(0, name.length() - PATH_EXTENSION.length()));
+      }
+    }
+    names.sort(null);
+    return names;
+  }
+
+  /** Names of every deployed path, sorted. Cheap, only lists the directory. */
+  public List<String> getPathNames() {
+    return pathNames;
+  }
+
+  /** Starts generating every deployed path with the default constraints in the background. */
+  public void preloadAll() {
+    Thread thread = new Thread(() -> {
+      RealTime.lowerCurrentThread("TrajectoryCache");
+      long start = System.nanoTime();
+      for (String name : pathNames) {
+        load(name, defaultConstraints);
+      }
+      preloadCount = trajectories.size();
+      preloadMillis = (System.nanoTime() - start) / 1.0e6;
+      // Volatile write publishes the counts with it
+      preloaded = true;
+    }, "TrajectoryCache");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MIN_PRIORITY);
+    thread.start();
+  }
+
+  /** Whether the background preload has finished. */
+  public boolean isPreloaded() {
+    return preloaded;
+  }
+
+  /**
+   * Logs how many paths the preload generated and how long it took under "Startup/Paths/", once
+   * it has finished. Call from the main loop while disabled.
+   */
+  public void logPreload() {
+    if (preloadLogged || !preloaded) {
+      return;
+    }
+    preloadLogged = true;
+    Logger.getInstance().recordOutput("Startup/Paths/Count", preloadCount);
+    Logger.getInstance().recordOutput("Startup/Paths/TotalMillis", preloadMillis);
+  }
+
+  /** Whether the path has been generated with the default constraints. */
+  public boolean contains(String name) {
+    return trajectories.containsKey(key(name, defaultConstraints));
+  }
+
+  /**
+   * The path generated with the default constraints. Generated on the spot, with a warning, if it
+   * isn't cached yet.
+   * @return The trajectory, or null if the path can't be loaded.
+   */
+  public PathPlannerTrajectory get(String name) {
+    return get(name, defaultConstraints);
+  }
+
+  /**
+   * The path generated with the given constraints. Generated on the spot, with a warning, if it
+   * isn't cached yet.
+   * @return The trajectory, or null if the path can't be loaded.
+   */
+  public PathPlannerTrajectory get(String name, PathConstraints constraints) {
+    PathPlannerTrajectory trajectory = trajectories.get(key(name, constraints));
+    if (trajectory == null) {
+      DriverStation.reportWarning("Path " + name + " wasn't pregenerated, generating it now", false);
+      trajectory = load(name, constraints);
+    }
+    return trajectory;
+  }
+
+  private PathPlannerTrajectory load(String name, PathConstraints constraints) {
+    PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, constraints);
+    if (trajectory == null) {
+      DriverStation.reportWarning("Could not load path " + name, false);
+      return null;
+    }
+    if (constraints.maxVelocity == defaultConstraints.maxVelocity
+        && constraints.maxAcceleration == defaultConstraints.maxAcceleration) {
+      SampledTrajectory samples = mapSampled(name);
+      if (samples != null) {
+        sampled.put(trajectory, samples);
+      }
+    }
+    trajectories.put(key(name, constraints), trajectory);
+    return trajectory;
+  }
+
+  /**
+   * The build's samples for a trajectory from this cache.
+   * @return Null if it wasn't generated with the default constraints or has no usable samples.
+   */
+  public SampledTrajectory getSampled(PathPlannerTrajectory trajectory) {
+    return sampled.get(trajectory);
+  }
+
+  private SampledTrajectory mapSampled(String name) {
+    File file = new File(sampledDirectory, name + SampledTrajectory.EXTENSION);
+    try {
+      SampledTrajectory samples = SampledTrajectory.map(file.toPath());
+      if (samples.getMaxVelocity() != defaultConstraints.maxVelocity
+          || samples.getMaxAcceleration() != defaultConstraints.maxAcceleration) {
+        DriverStation.reportWarning("Samples for path " + name
+            + " were built with other constraints, following the generated path", false);
+        return null;
+      }
+      return samples;
+    } catch (IOException e) {
+      DriverStation.reportWarning("No samples for path " + name + " (" + e.getMessage()
+          + "), following the generated path; run generateTrajectories", false);
+      return null;
+    }
+  }
+
+  private static String key(String name, PathConstraints constraints) {
+    return name + "@" + constraints.maxVelocity + "/" + constraints.maxAcceleration;
+  }
+}
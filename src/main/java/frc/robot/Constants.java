@@ -12,6 +12,7 @@ import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.util.Units;
+import edu.wpi.first.wpilibj.RobotBase;
 
 /**
  * The Constants class provides a convenient place for teams to hold robot-wide numerical or boolean
@@ -23,7 +24,26 @@ import edu.wpi.first.math.util.Units;
  */
 public final class Constants {
 
-    public static final Mode currentMode = Mode.REAL;
+    // Off the robot the mode can be picked with -Dfrc.mode=REPLAY (the replay benchmark sets it)
+    public static final String MODE_PROPERTY = "frc.mode";
+    public static final Mode currentMode = RobotBase.isReal()
+        ? Mode.REAL
+        : Mode.valueOf(System.getProperty(MODE_PROPERTY, Mode.SIM.name()));
+    // The simulator has no vision unless a file to play back is picked with
+    // -Dfrc.visionFile=vision/sample.csv, relative to the deploy directory
+    public static final String VISION_FILE_PROPERTY = "frc.visionFile";
+
+    // Real-time mode: the main loop runs at real-time priority and its own loop period, with the
+    // sensor sampling threads above it so they aren't held up by a long cycle, and background
+    // threads are niced below the rest
+    public static final boolean REAL_TIME_MODE = false;
+    public static final int MAIN_THREAD_PRIORITY = 10; // 1 to 99, every normal thread is below 1
+    public static final int SENSOR_THREAD_PRIORITY = 15;
+    public static final int BACKGROUND_NICE = 10; // 0 to 19, higher yields more to other normal threads
+    public static final double REAL_TIME_LOOP_PERIOD_SECS = 0.01;
+
+    public static final double LOOP_PERIOD_SECS = REAL_TIME_MODE ? REAL_TIME_LOOP_PERIOD_SECS : 0.02;
+    public static final int DASHBOARD_PERIOD_CYCLES = (int) Math.round(0.1 / LOOP_PERIOD_SECS); // Dashboard telemetry at 10 Hz, the log gets every cycle
 
   public static enum Mode {
     /** Running on a real robot. */
@@ -102,6 +122,12 @@ public final class Constants {
             new Translation2d(CENTER_TO_WHEEL_X, -CENTER_TO_WHEEL_Y), // mod 2
             new Translation2d(CENTER_TO_WHEEL_X, CENTER_TO_WHEEL_Y)); // mod 3
 
+        // Module locations as primitives for the allocation-free drive path, same order as DRIVE_KIN
+        public static final double[] MODULE_LOCATIONS_X = {
+            -CENTER_TO_WHEEL_X, -CENTER_TO_WHEEL_X, CENTER_TO_WHEEL_X, CENTER_TO_WHEEL_X};
+        public static final double[] MODULE_LOCATIONS_Y = {
+            CENTER_TO_WHEEL_Y, -CENTER_TO_WHEEL_Y, -CENTER_TO_WHEEL_Y, CENTER_TO_WHEEL_Y};
+
 
     // PID CONSTANTS
         // Drivetrain
@@ -132,11 +158,58 @@ public final class Constants {
     public static double AUTON_KD = 0;
     public static double AUTON_DISTANCE_SETPOINT = 0; // feet 3
 
+    // SimpleAutonomous segment control
+    public static final double AUTO_TRANSLATION_KP = 2.0; // meters per second per meter left
+    public static final double AUTO_ROTATION_KP = 3.0; // radians per second per radian of error
+    public static final double AUTO_POSITION_TOLERANCE = 0.05; // meters
+    public static final double AUTO_HEADING_TOLERANCE_DEGREES = 2.0;
+    public static final double AUTO_SEGMENT_TIMEOUT = 5.0; // seconds before a closed-loop segment gives up
+
+    // PathPlanner constraints every deployed path is pregenerated with
+    public static final double PATH_MAX_VELOCITY = 3.0; // meters per second
+    public static final double PATH_MAX_ACCELERATION = 2.0; // meters per second squared
+
     //Odometry
     public static final boolean invertGyro = false;
+    public static final double ODOMETRY_FREQUENCY = 250.0; // Hz, only on a real robot
+    public static final double POSE_HISTORY_SECS = 1.5; // how far back SwerveDrivetrain.samplePose can look
+
+    //Vision
+    public static final double FIELD_LENGTH = 16.54; // meters
+    public static final double FIELD_WIDTH = 8.02; // meters
+    public static final double VISION_MAX_AMBIGUITY = 0.2; // single tag only
+    public static final double VISION_MAX_DISTANCE = 4.0; // meters to the tags
+    public static final double VISION_MAX_AGE = 1.0; // seconds, the estimator keeps 1.5
+    public static final double VISION_XY_STD_DEV = 0.05; // meters at 1 meter from one tag, scales with distance squared
+    public static final double VISION_THETA_STD_DEV = 0.1; // radians at 1 meter, multi-tag only
+
+
+    //Auto balance
+    public static final double BALANCE_FREQUENCY = 100.0; // Hz, the control law runs on its own notifier
+    public static final double BALANCE_APPROACH_SPEED = 1.2; // meters per second until the ramp tilts the robot
+    public static final double BALANCE_CLIMB_SPEED = 0.6; // meters per second up the ramp
+    public static final double BALANCE_CLIMB_START_DEGREES = 12.0;
+    public static final double BALANCE_TIP_RATE = 15.0; // degrees per second toward level means the station is tipping
+    public static final double BALANCE_KP = 0.025; // meters per second per degree
+    public static final double BALANCE_KD = 0.004; // meters per second per degree per second
+    public static final double BALANCE_MAX_SPEED = 0.4; // meters per second while settling
+    public static final double BALANCE_LEVEL_DEGREES = 2.5;
+    public static final double BALANCE_LEVEL_RATE = 5.0; // degrees per second
+    public static final double BALANCE_SETTLE_SECS = 0.5; // level this long before locking
+    public static final double BALANCE_RELEVEL_DEGREES = 6.0;
 
 
     public static final double driveKS = 0.1;
     public static final double driveKV = 2.3;
     public static final double driveKA = 0.3;
+
+    // Second-order kinematics: feed the module steering rate forward to the turn motor
+    public static final boolean SECOND_ORDER_KINEMATICS = true;
+    public static final boolean DISCRETIZE_CHASSIS_SPEEDS = true;
+    public static final double TURN_KV = 0.43; // volts per radian per second of module rotation, NEO free speed through 150/7
+
+    // Setpoint generator: how fast each module's commanded velocity may change
+    public static final boolean SETPOINT_GENERATOR = true;
+    public static final double MODULE_MAX_ACCELERATION = 8.0; // meters per second squared, about where the wheels start to slip
+    public static final double MODULE_MAX_STEER_RATE = 20.0; // radians per second, about 3/4 of the turn motor's free speed
 }
\ No newline at end of file
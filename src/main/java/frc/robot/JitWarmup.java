@@ -0,0 +1,238 @@
+package frc.robot;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+import com.pathplanner.lib.controllers.PPHolonomicDriveController;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveModulePosition;
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.lib.util.RealTime;
+import frc.lib.util.SampledTrajectory;
+import frc.lib.util.TrajectoryCache;
+import frc.robot.subsystems.SwerveDrivetrain;
+
+/**
+ * Runs the autonomous hot paths while disabled so the JIT has compiled them before the match
+ * starts: the drivetrain's drive path down through the modules, the pose estimator, the sampled
+ * trajectory, and the PathPlanner follower's sample, controller and kinematics steps, which paths
+ * without samples fall back to. Everything is driven with synthetic inputs against
+ * {@link SwerveDrivetrain#createWarmup()} and a private pose estimator, so no motor is commanded
+ * and the robot's own state is never touched.
+ *
+ * <p>Each disabled cycle spends up to {@link #BUDGET_SECS} on it. About once a second the JVM's
+ * compiled method list is checked on a background thread, since building and parsing it takes far
+ * longer than a cycle, and warm-up pauses once every hot path is compiled by C2. Checks carry on
+ * while paused, and warm-up resumes if the JVM has deoptimized a hot path, until
+ * {@link #MAX_ITERATIONS} is reached. Status, the compiled method count and each hot path's
+ * compilation tier are logged under "Warmup/". Main thread only, apart from the check.
+ */
+public class JitWarmup {
+  private static final double BUDGET_SECS = 0.005;
+  private static final int BATCH = 10;
+  private static final int CHECK_PERIOD_CYCLES = 50;
+  private static final int MAX_ITERATIONS = 200000;
+  // HotSpot's top tier
+  private static final int C2_TIER = 4;
+  private static final String ROOT = "Warmup/";
+
+  // Matched against the "class.method(" prefix of each compiled method
+  private static final String[] HOT_PATHS = {
+    "frc.robot.subsystems.SwerveDrivetrain.drive(",
+    "frc.robot.subsystems.SwerveDrivetrain.setModuleStates(",
+    "frc.robot.subsystems.SwerveModules.setDesiredState(",
+    "frc.lib.util.SwerveSetpointGenerator.generate(",
+    "frc.lib.util.SampledTrajectory.sample(",
+    "edu.wpi.first.math.estimator.SwerveDrivePoseEstimator.updateWithTime(",
+    "com.pathplanner.lib.PathPlannerTrajectory.sample(",
+    "com.pathplanner.lib.controllers.PPHolonomicDriveController.calculate(",
+  };
+
+  private final TrajectoryCache trajectoryCache;
+  private final SwerveDrivetrain drivetrain = SwerveDrivetrain.createWarmup();
+  private final SwerveModulePosition[] positions = new SwerveModulePosition[] {
+    new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+  };
+  private final SwerveDrivePoseEstimator poseEstimator =
+      new SwerveDrivePoseEstimator(Constants.DRIVE_KIN, new Rotation2d(), positions, new Pose2d());
+  // Gains don't matter, only the code path
+  private final PPHolonomicDriveController controller = new PPHolonomicDriveController(
+      new PIDController(1, 0, 0), new PIDController(1, 0, 0), new PIDController(0.8, 0, 0));
+  private final CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+  private final ExecutorService checker = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(() -> {
+      RealTime.lowerCurrentThread("JitWarmupCheck");
+      runnable.run();
+    }, "JitWarmupCheck");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  private final String[] tierKeys = new String[HOT_PATHS.length];
+  private final int[] tiers = new int[HOT_PATHS.length];
+  private PathPlannerTrajectory trajectory = null;
+  private SampledTrajectory samples = null;
+  private final double[] sample = new double[SampledTrajectory.STRIDE];
+  private CompletableFuture<Boolean> check = null;
+  private int iterations = 0;
+  private int cycle = 0;
+  private int compiledMethods = -1;
+  private boolean done = false;
+
+  // Checker thread only, copied out once a check completes
+  private final int[] checkedTiers = new int[HOT_PATHS.length];
+  private ObjectName diagnostics;
+  private int checkedMethods = -1;
+
+  /** @param trajectoryCache Where to take a path for the follower from, once it's preloaded. */
+  public JitWarmup(TrajectoryCache trajectoryCache) {
+    this.trajectoryCache = trajectoryCache;
+    for (int i = 0; i < HOT_PATHS.length; i++) {
+      String path = HOT_PATHS[i];
+      String method = path.substring(path.lastIndexOf('.', path.lastIndexOf('.') - 1) + 1, path.length() - 1);
+      tierKeys[i] = ROOT + "Tiers/" + method;
+    }
+    try {
+      diagnostics = new ObjectName("com.sun.management:type=DiagnosticCommand");
+    } catch (JMException e) {
+      diagnostics = null;
+    }
+  }
+
+  /** Call from disabledPeriodic. Does nothing once the iteration limit is reached. */
+  public void periodic() {
+    if (iterations >= MAX_ITERATIONS) {
+      return;
+    }
+    if (trajectory == null && trajectoryCache.isPreloaded() && !trajectoryCache.getPathNames().isEmpty()) {
+      trajectory = trajectoryCache.get(trajectoryCache.getPathNames().get(0));
+      samples = trajectory != null ? trajectoryCache.getSampled(trajectory) : null;
+    }
+
+    if (!done) {
+      long deadline = System.nanoTime() + (long) (BUDGET_SECS * 1.0e9);
+      do {
+        for (int n = 0; n < BATCH; n++) {
+          runOnce(iterations++);
+        }
+      } while (System.nanoTime() < deadline);
+    }
+
+    if (check != null && check.isDone()) {
+      // Completion makes the checker's writes visible here
+      boolean compiled = check.getNow(false);
+      check = null;
+      System.arraycopy(checkedTiers, 0, tiers, 0, tiers.length);
+      compiledMethods = checkedMethods;
+      done = compiled;
+    }
+    if (iterations >= MAX_ITERATIONS) {
+      done = true;
+      checker.shutdown();
+    } else if (check == null && ++cycle >= CHECK_PERIOD_CYCLES) {
+      cycle = 0;
+      check = CompletableFuture.supplyAsync(this::checkCompiled, checker);
+    }
+
+    Logger.getInstance().recordOutput(ROOT + "Done", done);
+    Logger.getInstance().recordOutput(ROOT + "Iterations", iterations);
+    Logger.getInstance().recordOutput(ROOT + "CompiledMethods", compiledMethods);
+    Logger.getInstance().recordOutput(ROOT + "CompilationMS",
+        compiler != null && compiler.isCompilationTimeMonitoringSupported() ? compiler.getTotalCompilationTime() : -1);
+    for (int i = 0; i < HOT_PATHS.length; i++) {
+      Logger.getInstance().recordOutput(tierKeys[i], tiers[i]);
+    }
+  }
+
+  /** One pass over every hot path with inputs that change each time. */
+  private void runOnce(int i) {
+    double timestamp = i * Constants.LOOP_PERIOD_SECS;
+    double vx = Math.sin(i * 0.01) * Constants.DRIVETRAIN_MAX_SPEED;
+    double vy = Math.cos(i * 0.007) * Constants.DRIVETRAIN_MAX_SPEED;
+    double omega = Math.sin(i * 0.013) * Constants.DRIVETRAIN_MAX_TURN_SPEED;
+    drivetrain.swerveDrive(vx, vy, omega, (i & 1) == 0, false);
+
+    for (int m = 0; m < positions.length; m++) {
+      positions[m].distanceMeters += vx * Constants.LOOP_PERIOD_SECS;
+      positions[m].angle = Rotation2d.fromDegrees((i * 3 + m * 90) % 360);
+    }
+    Pose2d pose = poseEstimator.updateWithTime(timestamp, Rotation2d.fromRadians(omega), positions);
+    if (i % 10 == 0) {
+      poseEstimator.addVisionMeasurement(pose, timestamp - 0.1);
+    }
+
+    if (trajectory != null) {
+      double t = timestamp % trajectory.getTotalTimeSeconds();
+      ChassisSpeeds speeds = controller.calculate(pose, (PathPlannerState) trajectory.sample(t));
+      drivetrain.setModuleStates(Constants.DRIVE_KIN.toSwerveModuleStates(speeds));
+    }
+    if (samples != null) {
+      samples.sample(timestamp % samples.getTotalTimeSeconds(), sample);
+    }
+  }
+
+  /**
+   * Reads the JVM's compiled method list, like jcmd Compiler.codelist, and records each hot path's
+   * highest tier in it. A path that's no longer in the list reads as tier 0. Runs on the checker
+   * thread.
+   * @return Whether every hot path is compiled by C2.
+   */
+  private boolean checkCompiled() {
+    if (diagnostics == null) {
+      return false;
+    }
+    String codelist;
+    try {
+      codelist = (String) ManagementFactory.getPlatformMBeanServer().invoke(diagnostics,
+          "compilerCodelist", new Object[] {new String[0]}, new String[] {String[].class.getName()});
+    } catch (JMException | RuntimeException e) {
+      DriverStation.reportWarning("JIT warm-up can't read compiled methods, running to the iteration limit: "
+          + e.getMessage(), false);
+      diagnostics = null;
+      return false;
+    }
+
+    // Each line is "compile_id tier state class.method(signature) [addresses]"
+    String[] lines = codelist.split("\n");
+    checkedMethods = lines.length;
+    Arrays.fill(checkedTiers, 0);
+    for (String line : lines) {
+      String[] fields = line.split(" ", 5);
+      if (fields.length < 4) {
+        continue;
+      }
+      for (int i = 0; i < HOT_PATHS.length; i++) {
+        if (fields[3].startsWith(HOT_PATHS[i])) {
+          try {
+            checkedTiers[i] = Math.max(checkedTiers[i], Integer.parseInt(fields[1]));
+          } catch (NumberFormatException e) {
+            // Not a method line
+          }
+        }
+      }
+    }
+
+    for (int tier : checkedTiers) {
+      if (tier < C2_TIER) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
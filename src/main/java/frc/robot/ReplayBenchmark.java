@@ -0,0 +1,100 @@
+package frc.robot;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import edu.wpi.first.wpilibj.RobotBase;
+
+/**
+ * Headless replay runner. Replays a .wpilog through the full robot code as fast as possible and
+ * prints cycles per second, per-cycle time percentiles and bytes allocated per cycle when the
+ * replay ends. Run it with {@code ./gradlew replayBenchmark -PreplayLog=path/to/log.wpilog}.
+ */
+public final class ReplayBenchmark {
+  private static volatile boolean active = false;
+
+  private static final com.sun.management.ThreadMXBean threadBean =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static long[] cycleNanos = new long[1 << 16];
+  private static long[] cycleBytes = new long[1 << 16];
+  private static int cycles = 0;
+
+  private static long startNanos = 0;
+  private static long lastNanos = 0;
+  private static long lastBytes = 0;
+  private static long robotThreadId = -1;
+
+  private ReplayBenchmark() {
+  }
+
+  public static void main(String... args) {
+    // Must be set before Constants loads
+    System.setProperty(Constants.MODE_PROPERTY, Constants.Mode.REPLAY.name());
+    active = true;
+    Runtime.getRuntime().addShutdownHook(new Thread(ReplayBenchmark::report, "ReplayBenchmarkReport"));
+    RobotBase.startRobot(Robot::new);
+  }
+
+  public static boolean isActive() {
+    return active;
+  }
+
+  /** Marks the start of a robot cycle. Called at the top of robotPeriodic. */
+  public static void recordCycle() {
+    if (!active) {
+      return;
+    }
+
+    long now = System.nanoTime();
+    if (robotThreadId < 0) {
+      robotThreadId = Thread.currentThread().getId();
+      startNanos = now;
+      lastNanos = now;
+      lastBytes = threadBean.getThreadAllocatedBytes(robotThreadId);
+      return;
+    }
+
+    long bytes = threadBean.getThreadAllocatedBytes(robotThreadId);
+    synchronized (ReplayBenchmark.class) {
+      if (cycles == cycleNanos.length) {
+        cycleNanos = Arrays.copyOf(cycleNanos, cycles * 2);
+        cycleBytes = Arrays.copyOf(cycleBytes, cycles * 2);
+      }
+      cycleNanos[cycles] = now - lastNanos;
+      cycleBytes[cycles] = bytes - lastBytes;
+      cycles++;
+    }
+    lastNanos = now;
+    lastBytes = bytes;
+  }
+
+  private static synchronized void report() {
+    if (cycles == 0) {
+      System.out.println("[ReplayBenchmark] No cycles recorded");
+      return;
+    }
+
+    double totalSeconds = (lastNanos - startNanos) / 1.0e9;
+    long[] times = Arrays.copyOf(cycleNanos, cycles);
+    long[] bytes = Arrays.copyOf(cycleBytes, cycles);
+    Arrays.sort(times);
+    long totalBytes = 0;
+    for (long b : bytes) {
+      totalBytes += b;
+    }
+    Arrays.sort(bytes);
+
+    System.out.println("[ReplayBenchmark] Cycles: " + cycles);
+    System.out.printf("[ReplayBenchmark] Total time: %.3f s (%.1f cycles/s, %.1fx real time)%n",
+        totalSeconds, cycles / totalSeconds, cycles * Constants.LOOP_PERIOD_SECS / totalSeconds);
+    System.out.printf("[ReplayBenchmark] Cycle time p50: %.3f ms  p99: %.3f ms  max: %.3f ms%n",
+        percentile(times, 0.50) / 1.0e6, percentile(times, 0.99) / 1.0e6, times[cycles - 1] / 1.0e6);
+    System.out.printf("[ReplayBenchmark] Allocated per cycle mean: %d B  p50: %d B  p99: %d B%n",
+        totalBytes / cycles, percentile(bytes, 0.50), percentile(bytes, 0.99));
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    return sorted[(int) Math.min(sorted.length - 1, Math.floor(p * sorted.length))];
+  }
+}
@@ -19,6 +19,10 @@ import org.littletonrobotics.junction.wpilog.WPILOGWriter;
 import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import frc.lib.CTREConfigs;
+import frc.lib.util.LoopTimings;
+import frc.lib.util.RealTime;
+import frc.lib.util.StatusFrameScheduler;
+import frc.lib.util.StatusFrameScheduler.Profile;
 
 /**
  * The VM is configured to automatically run this class, and to call the functions corresponding to
@@ -33,6 +37,11 @@ public class Robot extends LoggedRobot {
 
   private RobotContainer m_robotContainer;
 
+  public Robot() {
+    // REAL_TIME_LOOP_PERIOD_SECS in real-time mode
+    super(Constants.LOOP_PERIOD_SECS);
+  }
+
   /**
    * This function is run when the robot is first started up and should be used for any
    * initialization code.
@@ -88,6 +97,13 @@ public class Robot extends LoggedRobot {
     // Start AdvantageKit logger
 Logger.getInstance().start(); // Start logging! No more data receivers, replay sources, or metadata values may be added.
     m_robotContainer = new RobotContainer();
+
+    // Startup is done; from here on the main loop preempts background work. AdvantageKit's
+    // receiver thread writes the log and publishes it to the dashboard
+    RealTime.lowerThreads("AdvantageKit");
+    RealTime.promoteCurrentThread(Constants.MAIN_THREAD_PRIORITY, "the main robot thread");
+    Logger.getInstance().recordOutput("RealTime/Enabled", RealTime.isEnabled());
+    Logger.getInstance().recordOutput("RealTime/LoopPeriodSecs", getPeriod());
   }
 
   /**
@@ -99,6 +115,9 @@ Logger.getInstance().start(); // Start logging! No more data receivers, replay s
    */
   @Override
   public void robotPeriodic() {
+    ReplayBenchmark.recordCycle();
+    LoopTimings.beginCycle();
+
     // Runs the Scheduler.  This is responsible for polling buttons, adding newly-scheduled
     // commands, running already-scheduled commands, removing finished or interrupted commands,
     // and running subsystem periodic() methods.  This must be called from the robot's periodic
@@ -111,10 +130,13 @@ Logger.getInstance().start(); // Start logging! No more data receivers, replay s
    */
   @Override
   public void disabledInit() {
+    StatusFrameScheduler.setProfile(Profile.DISABLED);
   }
 
   @Override
   public void disabledPeriodic() {
+    m_robotContainer.updateAutoSelection();
+    m_robotContainer.warmUp();
   }
 
   /**
@@ -122,6 +144,7 @@ Logger.getInstance().start(); // Start logging! No more data receivers, replay s
    */
   @Override
   public void autonomousInit() {
+    StatusFrameScheduler.setProfile(Profile.AUTONOMOUS);
     m_autonomousCommand = m_robotContainer.getAutonomousCommand();
 
     // schedule the autonomous command (example)
@@ -139,6 +162,7 @@ Logger.getInstance().start(); // Start logging! No more data receivers, replay s
 
   @Override
   public void teleopInit() {
+    StatusFrameScheduler.setProfile(Profile.TELEOP);
     // This makes sure that the autonomous stops running when
     // teleop starts running. If you want the autonomous to
     // continue until interrupted by another command, remove
@@ -157,6 +181,7 @@ Logger.getInstance().start(); // Start logging! No more data receivers, replay s
 
   @Override
   public void testInit() {
+    StatusFrameScheduler.setProfile(Profile.TEST);
     // Cancels all running commands at the start of test mode.
     CommandScheduler.getInstance().cancelAll();
   }
@@ -14,19 +14,17 @@ import edu.wpi.first.wpilibj.Joystick;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
 
-import com.kauailabs.navx.frc.AHRS;
 
-import com.pathplanner.lib.PathPlanner;
 import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.EventMarker;
 import com.pathplanner.lib.auto.PIDConstants;
 import com.pathplanner.lib.auto.SwerveAutoBuilder;
 
+import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.GenericHID;
 import edu.wpi.first.wpilibj.PS4Controller;
 import edu.wpi.first.wpilibj.XboxController;
-import edu.wpi.first.wpilibj.SerialPort.Port;
 
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInLayouts;
 import edu.wpi.first.wpilibj.shuffleboard.BuiltInWidgets;
@@ -40,11 +38,19 @@ import edu.wpi.first.wpilibj2.command.Command;
 import edu.wpi.first.wpilibj2.command.InstantCommand;
 import edu.wpi.first.wpilibj2.command.ParallelCommandGroup;
 
+import frc.lib.util.TrajectoryCache;
+import frc.robot.commands.automatic.AutoBalance;
+import frc.robot.commands.autonomous.AutoSequence;
+import frc.robot.commands.autonomous.SampledAutoBuilder;
 import frc.robot.commands.autonomous.SimpleAutonomous;
 import frc.robot.commands.manual.DriveJoystickSwerve;
 import frc.robot.commands.manual.DriveSwerve;
 
 import frc.robot.subsystems.*;
+import frc.robot.subsystems.vision.Vision;
+import frc.robot.subsystems.vision.VisionIO;
+import frc.robot.subsystems.vision.VisionIOFile;
+import frc.robot.subsystems.vision.VisionIONetworkTables;
 
 /**
  * This class is where the bulk of the robot should be declared. Since
@@ -59,6 +65,9 @@ public class RobotContainer {
    */
   
   public RobotContainer() {
+    // Only valid as the stop event at the end of a path, see buildAuto
+    eventMap.put(BALANCE_EVENT, new AutoBalance(drivetrain, true));
+    trajectoryCache.preloadAll();
     configureInitialDefaultCommands();
     configureButtonBindings();
     configureShuffleboardData();
@@ -71,36 +80,46 @@ public class RobotContainer {
   private final SendableChooser<Command> m_chooser = new SendableChooser<Command>();
   
   
-  private final SendableChooser<Optional<PathPlannerTrajectory>> autoChooser = new SendableChooser<>();
-  private final SwerveAutoBuilder autoBuilder = new SwerveAutoBuilder(
-    drivetrain::getPose,
-    drivetrain::resetOdometry,
-      Constants.DRIVE_KIN, // SwerveDriveKinematics
+  private static final String NO_AUTO = "None";
+  private static final String BALANCE_EVENT = "AutoBalance";
+  private final SendableChooser<String> autoChooser = new SendableChooser<>();
+  private final TrajectoryCache trajectoryCache = new TrajectoryCache(TrajectoryCache.robotConstraints());
+  // Exercises the auto hot paths while disabled, against its own do-nothing drivetrain
+  private final JitWarmup jitWarmup = new JitWarmup(trajectoryCache);
+  // Auto built for the current chooser selection while disabled
+  private String builtAutoName = null;
+  private Command builtAuto = null;
+  // Follows each path from the samples the build wrote for it
+  private final SwerveAutoBuilder autoBuilder = new SampledAutoBuilder(
+      drivetrain,
+      trajectoryCache,
       new PIDConstants(1, 0, 0),
       new PIDConstants(.8, 0, 0),
-            drivetrain::setModuleStates,
       eventMap,
-      true,
-      drivetrain);
+      true);
 
   private static Map<String, Command> eventMap = new HashMap<>();
 
-
-  PathPlannerTrajectory DoNothing = PathPlanner.loadPath("DoNothing",0,0);
-
   /// SUBSYSTEMS ///
-  public static final SwerveDrivetrain drivetrain = new SwerveDrivetrain();
+  // First, so the monitors run right after the loop timings close the last cycle
+  public static final Diagnostics diagnostics = new Diagnostics();
+  public static final SwerveDrivetrain drivetrain = createDrivetrain();
+  public static final Vision vision = createVision();
 
   /// OI DEVICES / HARDWARE ///
   private final XboxController xbox = new XboxController(0);
   private final PS4Controller ps4 = new PS4Controller(1);
   private final Joystick stick = new Joystick(1);
-  private static final AHRS ahrs = new AHRS(Port.kMXP);
 
 
   /// COMMANDS ///
   // Autonomous
-  private final SimpleAutonomous simpleAuto = new SimpleAutonomous(drivetrain, ahrs);
+  // Drive out of the community, then turn to face the grid
+  private final SimpleAutonomous simpleAuto = new SimpleAutonomous(drivetrain, new AutoSequence()
+      .driveDistance(2.5, 0.0, 1.5)
+      .hold(0.25)
+      .rotateTo(180.0)
+      .hold(0.25));
 
   // Xbox controls
   private final DriveSwerve drivetrainXbox = new DriveSwerve(drivetrain, () -> -xbox.getLeftY(), ()-> xbox.getLeftX(), ()-> -xbox.getRightX(),
@@ -114,6 +133,57 @@ public class RobotContainer {
   private final DriveJoystickSwerve driveJoystick = new DriveJoystickSwerve(drivetrain, () -> stick.getY(), () -> stick.getX(), () -> stick.getTwist(),
    () -> stick.getRawButton(7), () -> stick.getRawButton(8), () -> stick.getThrottle());
   
+  /**
+   * Picks the drivetrain hardware for the current mode. Replay uses the empty IO
+   * implementations so every input comes from the log.
+   */
+  private static SwerveDrivetrain createDrivetrain() {
+    switch (Constants.currentMode) {
+      case REAL:
+        return new SwerveDrivetrain(
+            new GyroIONavX(new GyroService()),
+            new ModuleIOSparkMax(Constants.Mod0.constants),
+            new ModuleIOSparkMax(Constants.Mod1.constants),
+            new ModuleIOSparkMax(Constants.Mod2.constants),
+            new ModuleIOSparkMax(Constants.Mod3.constants));
+
+      case SIM:
+        return new SwerveDrivetrain(
+            GyroIO.NONE,
+            new ModuleIOSim(),
+            new ModuleIOSim(),
+            new ModuleIOSim(),
+            new ModuleIOSim());
+
+      default:
+        return new SwerveDrivetrain(
+            GyroIO.NONE,
+            ModuleIO.NONE,
+            ModuleIO.NONE,
+            ModuleIO.NONE,
+            ModuleIO.NONE);
+    }
+  }
+
+  /**
+   * Picks the camera sources for the current mode. The simulator has no cameras unless a file to
+   * play back is picked with {@link Constants#VISION_FILE_PROPERTY}, since fixed poses disagree
+   * with the simulated drivetrain. Replay takes every observation from the log.
+   */
+  private static Vision createVision() {
+    switch (Constants.currentMode) {
+      case REAL:
+        return new Vision(drivetrain, new VisionIONetworkTables("Camera0"));
+
+      case SIM:
+        String visionFile = System.getProperty(Constants.VISION_FILE_PROPERTY);
+        return new Vision(drivetrain, visionFile != null ? new VisionIOFile(visionFile) : new VisionIO() {});
+
+      default:
+        return new Vision(drivetrain, new VisionIO() {});
+    }
+  }
+
   /// SHUFFLEBOARD METHODS ///
   /**
    * Use this command to define {@link Shuffleboard} buttons using a
@@ -147,13 +217,13 @@ public class RobotContainer {
     .withPosition(2, 0).withSize(1, 3)
     .withProperties(Map.of("label position", "BOTTOM"));
 
-    gyroSensor.addNumber("Gyro", ()-> ahrs.getYaw()).withWidget(BuiltInWidgets.kGyro);
+    gyroSensor.addNumber("Gyro", ()-> drivetrain.getYawDegrees()).withWidget(BuiltInWidgets.kGyro);
 
     gyroSensor.add("Reset",
     new InstantCommand(()-> drivetrain.zeroHeading()));
 
     gyroSensor.add("Calibrate",
-    new InstantCommand(()-> ahrs.calibrate()));
+    new InstantCommand(()-> drivetrain.calibrateGyro()));
 
     ShuffleboardLayout controllerLayout = m_tab.getLayout("Controller Vals", BuiltInLayouts.kGrid)
     .withPosition(4, 0).withSize(2, 6)
@@ -177,7 +247,10 @@ public class RobotContainer {
   }
 
   private void configureSmartDashboard(){
-    autoChooser.addOption("test", Optional.empty());
+    autoChooser.setDefaultOption(NO_AUTO, NO_AUTO);
+    for (String name : trajectoryCache.getPathNames()) {
+      autoChooser.addOption(name, name);
+    }
 
     SmartDashboard.putData(autoChooser);
   }
@@ -206,15 +279,72 @@ public class RobotContainer {
   public Command getAutonomousCommand() {
 
     // Executes the autonomous command chosen in smart dashboard
-    Optional<PathPlannerTrajectory> choice = autoChooser.getSelected();
-    if (choice.isEmpty()) {
-        return null;
+    String choice = autoChooser.getSelected();
+    if (!choice.equals(builtAutoName)) {
+      // Selection changed after the last disabled cycle, build it now
+      builtAuto = buildAuto(choice);
+      builtAutoName = choice;
     }
+    return builtAuto;
+  }
+
+  /**
+   * Runs a slice of JIT warm-up. Call while disabled. Skipped in replay, which has no match to
+   * get ready for.
+   */
+  public void warmUp() {
+    if (Constants.currentMode != Constants.Mode.REPLAY) {
+      jitWarmup.periodic();
+    }
+  }
+
+  /**
+   * Builds the auto for the chooser selection ahead of time so autonomousInit only has to
+   * schedule it. Call while disabled; waits for the path to finish pregenerating.
+   */
+  public void updateAutoSelection() {
+    trajectoryCache.logPreload();
+    String choice = autoChooser.getSelected();
+    if (choice.equals(builtAutoName) || (!choice.equals(NO_AUTO) && !trajectoryCache.contains(choice))) {
+      return;
+    }
+    builtAuto = buildAuto(choice);
+    builtAutoName = choice;
+  }
+
+  private Command buildAuto(String name) {
+    if (name.equals(NO_AUTO)) {
+      return null;
+    }
+    PathPlannerTrajectory trajectory = trajectoryCache.get(name);
+    if (trajectory == null) {
+      return null;
+    }
+    if (!isBalanceAtEndOnly(trajectory)) {
+      DriverStation.reportError("Path " + name + " uses " + BALANCE_EVENT
+          + " before its end; it can only be the path's end stop event", false);
+      return null;
+    }
+    drivetrain.getField().getObject("Field").setTrajectory(trajectory);
     return new ParallelCommandGroup(
             new InstantCommand(
                     () -> drivetrain.getField().getObject("Field").setTrajectory(
-                        choice.get())),
-            autoBuilder.fullAuto(choice.get()));
+                        trajectory)),
+            autoBuilder.fullAuto(trajectory));
+  }
+
+  /**
+   * AutoBalance requires the drivetrain, so as a marker it would conflict with the path follower,
+   * and it holds the station until autonomous ends, so as the start stop event the path would
+   * never run. It's only allowed as the end stop event.
+   */
+  private static boolean isBalanceAtEndOnly(PathPlannerTrajectory trajectory) {
+    for (EventMarker marker : trajectory.getMarkers()) {
+      if (marker.names.contains(BALANCE_EVENT)) {
+        return false;
+      }
+    }
+    return !trajectory.getStartStopEvent().names.contains(BALANCE_EVENT);
   }
 
   public void displayValues() {
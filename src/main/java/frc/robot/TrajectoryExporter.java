@@ -0,0 +1,55 @@
+package frc.robot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import com.pathplanner.lib.PathConstraints;
+import com.pathplanner.lib.PathPlanner;
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.PathPlannerTrajectory.PathPlannerState;
+
+import frc.lib.util.SampledTrajectory;
+import frc.lib.util.TrajectoryCache;
+
+/**
+ * Build step that generates every deployed path with the robot's own path constraints and writes
+ * it as a {@link SampledTrajectory}, so the robot maps the samples instead of generating them.
+ * Run by {@code ./gradlew generateTrajectories}, which deploy and simulation depend on.
+ */
+public final class TrajectoryExporter {
+  // Matches the 100 Hz balance notifier, finer than any loop the follower runs in
+  private static final double SAMPLE_DT = 0.01;
+
+  private TrajectoryExporter() {}
+
+  /** @param args The output directory. */
+  public static void main(String... args) throws IOException {
+    Path output = Paths.get(args[0]);
+    Files.createDirectories(output);
+    PathConstraints constraints = TrajectoryCache.robotConstraints();
+    for (String name : TrajectoryCache.listPaths()) {
+      PathPlannerTrajectory trajectory = PathPlanner.loadPath(name, constraints);
+      if (trajectory == null) {
+        throw new IOException("Could not load path " + name);
+      }
+      double totalTime = trajectory.getTotalTimeSeconds();
+      int count = (int) Math.ceil(totalTime / SAMPLE_DT) + 1;
+      double[] samples = new double[count * SampledTrajectory.STRIDE];
+      for (int i = 0; i < count; i++) {
+        PathPlannerState state = (PathPlannerState) trajectory.sample(Math.min(i * SAMPLE_DT, totalTime));
+        int base = i * SampledTrajectory.STRIDE;
+        samples[base + SampledTrajectory.X] = state.poseMeters.getX();
+        samples[base + SampledTrajectory.Y] = state.poseMeters.getY();
+        samples[base + SampledTrajectory.HEADING] = state.poseMeters.getRotation().getRadians();
+        samples[base + SampledTrajectory.VELOCITY] = state.velocityMetersPerSecond;
+        samples[base + SampledTrajectory.HOLONOMIC_ROTATION] = state.holonomicRotation.getRadians();
+        samples[base + SampledTrajectory.HOLONOMIC_ANGULAR_VELOCITY] = state.holonomicAngularVelocityRadPerSec;
+      }
+      SampledTrajectory.write(output.resolve(name + SampledTrajectory.EXTENSION), samples, SAMPLE_DT,
+          totalTime, constraints.maxVelocity, constraints.maxAcceleration);
+      System.out.printf("Wrote %s, %d samples over %.2f s%n", name, count, totalTime);
+    }
+  }
+}
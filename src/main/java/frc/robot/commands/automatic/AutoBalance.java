@@ -4,29 +4,171 @@
 
 package frc.robot.commands.automatic;
 
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.Notifier;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.robot.Constants;
+import frc.robot.subsystems.SwerveDrivetrain;
 
+/**
+ * Drives onto the charge station and balances it. The control law runs on its own notifier at
+ * {@link Constants#BALANCE_FREQUENCY}, reading tilt and tilt rate straight from the gyro, so it
+ * reacts between scheduler cycles. Runs until interrupted, holding the modules in an X once level
+ * and re-leveling if the station tips again. In a PathPlanner auto it can only be a path's end stop
+ * event, where it balances until autonomous ends.
+ *
+ * <p>Positive pitch means the front of the robot is up and positive roll means the left side is
+ * up; both drive the robot uphill. Flip the signs in {@link #balance(double, double, double,
+ * double)} if the NavX is mounted differently.
+ */
 public class AutoBalance extends CommandBase {
-  /** Creates a new AutoBalance. */
-  public AutoBalance() {
-    // Use addRequirements() here to declare subsystem dependencies.
+  private static final int SETTLE_TICKS =
+      (int) Math.ceil(Constants.BALANCE_SETTLE_SECS * Constants.BALANCE_FREQUENCY);
+
+  private enum State {
+    /** Driving toward the station until the ramp tilts the robot. */
+    APPROACH,
+    /** Driving up the ramp until the station starts tipping toward level. */
+    CLIMB,
+    /** Closing in on level with a PD loop on tilt and tilt rate. */
+    SETTLE,
+    /** Level; modules in an X. */
+    LOCKED
+  }
+
+  private final SwerveDrivetrain drivetrain;
+  private final double approachDirection;
+  private final Notifier notifier;
+  private final double[] tilt = new double[4];
+
+  // Written on the notifier thread, read by execute for logging
+  private volatile State state = State.APPROACH;
+  private volatile double tiltDegrees = 0.0;
+  private volatile double xSpeed = 0.0;
+  private volatile double ySpeed = 0.0;
+  private volatile boolean running = false;
+  // Notifier ticks the station has been level for; counted rather than timed so it doesn't depend
+  // on the clock
+  private int levelTicks = 0;
+
+  /**
+   * @param drivetrain The drivetrain.
+   * @param forward Whether the station is in front of the robot rather than behind it.
+   */
+  public AutoBalance(SwerveDrivetrain drivetrain, boolean forward) {
+    addRequirements(drivetrain);
+    this.drivetrain = drivetrain;
+    approachDirection = forward ? 1.0 : -1.0;
+    notifier = new Notifier(this::update);
+    notifier.setName("AutoBalance");
   }
 
   // Called when the command is initially scheduled.
   @Override
-  public void initialize() {}
+  public void initialize() {
+    synchronized (drivetrain) {
+      state = State.APPROACH;
+      levelTicks = 0;
+      running = true;
+    }
+    notifier.startPeriodic(1.0 / Constants.BALANCE_FREQUENCY);
+  }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
-  public void execute() {}
+  public void execute() {
+    Logger.getInstance().recordOutput("AutoBalance/State", state.name());
+    Logger.getInstance().recordOutput("AutoBalance/TiltDegrees", tiltDegrees);
+    Logger.getInstance().recordOutput("AutoBalance/XSpeed", xSpeed);
+    Logger.getInstance().recordOutput("AutoBalance/YSpeed", ySpeed);
+  }
 
   // Called once the command ends or is interrupted.
   @Override
-  public void end(boolean interrupted) {}
+  public void end(boolean interrupted) {
+    // The notifier may be mid-update; once running is cleared under the lock it won't drive again
+    synchronized (drivetrain) {
+      running = false;
+      notifier.stop();
+      drivetrain.swerveDrive(0.0, 0.0, 0.0, false, false);
+    }
+  }
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
     return false;
   }
+
+  /** Runs on the notifier thread. */
+  private void update() {
+    synchronized (drivetrain) {
+      if (!running) {
+        return;
+      }
+      drivetrain.readTilt(tilt);
+      balance(tilt[0], tilt[1], tilt[2], tilt[3]);
+    }
+  }
+
+  private void balance(double pitch, double roll, double pitchRate, double rollRate) {
+    double magnitude = Math.hypot(pitch, roll);
+    // Rate of change of the tilt magnitude; negative while the station swings toward level
+    double magnitudeRate = magnitude > 1e-6 ? (pitch * pitchRate + roll * rollRate) / magnitude : 0.0;
+    tiltDegrees = magnitude;
+    State previous = state;
+
+    switch (state) {
+      case APPROACH:
+        xSpeed = approachDirection * Constants.BALANCE_APPROACH_SPEED;
+        ySpeed = 0.0;
+        if (magnitude > Constants.BALANCE_CLIMB_START_DEGREES) {
+          state = State.CLIMB;
+        }
+        break;
+
+      case CLIMB:
+        xSpeed = Math.signum(pitch) * Constants.BALANCE_CLIMB_SPEED;
+        ySpeed = 0.0;
+        if (magnitudeRate < -Constants.BALANCE_TIP_RATE) {
+          state = State.SETTLE;
+        }
+        break;
+
+      case SETTLE:
+        xSpeed = MathUtil.clamp(Constants.BALANCE_KP * pitch + Constants.BALANCE_KD * pitchRate,
+            -Constants.BALANCE_MAX_SPEED, Constants.BALANCE_MAX_SPEED);
+        ySpeed = MathUtil.clamp(Constants.BALANCE_KP * roll + Constants.BALANCE_KD * rollRate,
+            -Constants.BALANCE_MAX_SPEED, Constants.BALANCE_MAX_SPEED);
+        if (magnitude < Constants.BALANCE_LEVEL_DEGREES
+            && Math.abs(magnitudeRate) < Constants.BALANCE_LEVEL_RATE) {
+          if (++levelTicks >= SETTLE_TICKS) {
+            state = State.LOCKED;
+          }
+        } else {
+          levelTicks = 0;
+        }
+        break;
+
+      case LOCKED:
+        xSpeed = 0.0;
+        ySpeed = 0.0;
+        if (magnitude > Constants.BALANCE_RELEVEL_DEGREES) {
+          levelTicks = 0;
+          state = State.SETTLE;
+        }
+        break;
+    }
+
+    // The modules hold the X on their own, so it's only commanded on the way in
+    if (state == State.LOCKED) {
+      if (previous != State.LOCKED) {
+        drivetrain.formX();
+      }
+    } else {
+      drivetrain.swerveDrive(xSpeed, ySpeed, 0.0, false, false, 1.0 / Constants.BALANCE_FREQUENCY);
+    }
+  }
 }
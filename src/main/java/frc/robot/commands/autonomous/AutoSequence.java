@@ -0,0 +1,60 @@
+package frc.robot.commands.autonomous;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A list of auto segments for {@link SimpleAutonomous}: timed drives, distance drives checked
+ * against the pose estimator, turns to a heading, and holds. Build it once; the command compiles
+ * it into primitive arrays at construction. Speeds are field relative.
+ */
+public class AutoSequence {
+  static final int DRIVE_TIME = 0;
+  static final int DRIVE_DISTANCE = 1;
+  static final int ROTATE = 2;
+  static final int HOLD = 3;
+
+  /** {kind, a, b, c} per segment; what a, b and c mean depends on the kind. */
+  final List<double[]> segments = new ArrayList<>();
+
+  /**
+   * Drives at a fixed velocity for a time.
+   * @param seconds How long to drive.
+   * @param xSpeed Field x speed in meters per second.
+   * @param ySpeed Field y speed in meters per second.
+   */
+  public AutoSequence driveFor(double seconds, double xSpeed, double ySpeed) {
+    segments.add(new double[] {DRIVE_TIME, seconds, xSpeed, ySpeed});
+    return this;
+  }
+
+  /**
+   * Drives a distance along a field direction, slowing down near the end and stopping once the
+   * pose estimator says it's there.
+   * @param meters How far to drive.
+   * @param headingDegrees Field direction to drive in.
+   * @param maxSpeed Cruise speed in meters per second.
+   */
+  public AutoSequence driveDistance(double meters, double headingDegrees, double maxSpeed) {
+    segments.add(new double[] {DRIVE_DISTANCE, meters, Math.toRadians(headingDegrees), maxSpeed});
+    return this;
+  }
+
+  /**
+   * Turns in place to a field heading.
+   * @param headingDegrees The heading to face.
+   */
+  public AutoSequence rotateTo(double headingDegrees) {
+    segments.add(new double[] {ROTATE, Math.toRadians(headingDegrees), 0.0, 0.0});
+    return this;
+  }
+
+  /**
+   * Stops for a time.
+   * @param seconds How long to stay still.
+   */
+  public AutoSequence hold(double seconds) {
+    segments.add(new double[] {HOLD, seconds, 0.0, 0.0});
+    return this;
+  }
+}
@@ -0,0 +1,102 @@
+package frc.robot.commands.autonomous;
+
+import com.pathplanner.lib.auto.PIDConstants;
+
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Timer;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.LoopTimings;
+import frc.lib.util.SampledTrajectory;
+import frc.lib.util.SwerveMath;
+import frc.robot.subsystems.SwerveDrivetrain;
+
+/**
+ * Follows a {@link SampledTrajectory} the way PathPlanner's holonomic controller follows a
+ * generated path: the sample's velocity along its heading and its holonomic angular velocity are
+ * fed forward, with PID feedback on the pose. Sampling the mapped file and driving through
+ * primitives keeps execute allocation-free.
+ */
+public class FollowSampledTrajectory extends CommandBase {
+  private static final int executeSpan = LoopTimings.register("Commands/FollowSampledTrajectory/Execute");
+  // PathPlanner 2023 mirrors paths across the field's width for the red alliance
+  private static final double FIELD_WIDTH_METERS = 8.02;
+
+  private final SwerveDrivetrain drivetrain;
+  private final SampledTrajectory trajectory;
+  private final boolean useAllianceColor;
+  private final PIDController xController;
+  private final PIDController yController;
+  private final PIDController rotationController;
+  private final Timer timer = new Timer();
+  private final double[] sample = new double[SampledTrajectory.STRIDE];
+  private final double[] speeds = new double[3];
+  private boolean mirrored;
+
+  /**
+   * @param useAllianceColor Whether to mirror the path for the red alliance, like the auto builder.
+   */
+  public FollowSampledTrajectory(SwerveDrivetrain drivetrain, SampledTrajectory trajectory,
+      PIDConstants translationConstants, PIDConstants rotationConstants, boolean useAllianceColor) {
+    addRequirements(drivetrain);
+    this.drivetrain = drivetrain;
+    this.trajectory = trajectory;
+    this.useAllianceColor = useAllianceColor;
+    xController = new PIDController(translationConstants.kP, translationConstants.kI, translationConstants.kD);
+    yController = new PIDController(translationConstants.kP, translationConstants.kI, translationConstants.kD);
+    rotationController = new PIDController(rotationConstants.kP, rotationConstants.kI, rotationConstants.kD);
+    rotationController.enableContinuousInput(-Math.PI, Math.PI);
+  }
+
+  // Called when the command is initially scheduled.
+  @Override
+  public void initialize() {
+    mirrored = useAllianceColor && DriverStation.getAlliance() == DriverStation.Alliance.Red;
+    xController.reset();
+    yController.reset();
+    rotationController.reset();
+    timer.reset();
+    timer.start();
+  }
+
+  // Called every time the scheduler runs while the command is scheduled.
+  @Override
+  public void execute() {
+    LoopTimings.start(executeSpan);
+    trajectory.sample(timer.get(), sample);
+    double y = sample[SampledTrajectory.Y];
+    double heading = sample[SampledTrajectory.HEADING];
+    double rotation = sample[SampledTrajectory.HOLONOMIC_ROTATION];
+    double angularVelocity = sample[SampledTrajectory.HOLONOMIC_ANGULAR_VELOCITY];
+    if (mirrored) {
+      y = FIELD_WIDTH_METERS - y;
+      heading = -heading;
+      rotation = -rotation;
+      angularVelocity = -angularVelocity;
+    }
+
+    Pose2d pose = drivetrain.getPose();
+    double velocity = sample[SampledTrajectory.VELOCITY];
+    double vx = velocity * Math.cos(heading) + xController.calculate(pose.getX(), sample[SampledTrajectory.X]);
+    double vy = velocity * Math.sin(heading) + yController.calculate(pose.getY(), y);
+    double omega = angularVelocity + rotationController.calculate(pose.getRotation().getRadians(), rotation);
+    // Field relative on the estimated pose's heading, like PathPlanner's controller
+    SwerveMath.fromFieldRelative(vx, vy, omega, pose.getRotation().getRadians(), speeds);
+    drivetrain.swerveDrive(speeds[0], speeds[1], speeds[2], false, false);
+    LoopTimings.stop(executeSpan);
+  }
+
+  // Called once the command ends or is interrupted.
+  @Override
+  public void end(boolean interrupted) {
+    timer.stop();
+    drivetrain.swerveDrive(0.0, 0.0, 0.0, false, false);
+  }
+
+  // Returns true when the command should end.
+  @Override
+  public boolean isFinished() {
+    return timer.hasElapsed(trajectory.getTotalTimeSeconds());
+  }
+}
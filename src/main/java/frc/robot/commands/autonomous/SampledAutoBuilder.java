@@ -0,0 +1,49 @@
+package frc.robot.commands.autonomous;
+
+import java.util.Map;
+
+import com.pathplanner.lib.PathPlannerTrajectory;
+import com.pathplanner.lib.auto.PIDConstants;
+import com.pathplanner.lib.auto.SwerveAutoBuilder;
+
+import edu.wpi.first.wpilibj2.command.Command;
+import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.SampledTrajectory;
+import frc.lib.util.TrajectoryCache;
+import frc.robot.Constants;
+import frc.robot.subsystems.SwerveDrivetrain;
+
+/**
+ * PathPlanner's swerve auto builder, with each path followed from the samples the build wrote for
+ * it. Events, stop events and the starting pose still come from the generated trajectory; paths
+ * without usable samples fall back to PathPlanner's own follower.
+ */
+public class SampledAutoBuilder extends SwerveAutoBuilder {
+  private final SwerveDrivetrain drivetrain;
+  private final TrajectoryCache trajectoryCache;
+  private final PIDConstants translationConstants;
+  private final PIDConstants rotationConstants;
+  private final boolean useAllianceColor;
+
+  public SampledAutoBuilder(SwerveDrivetrain drivetrain, TrajectoryCache trajectoryCache,
+      PIDConstants translationConstants, PIDConstants rotationConstants,
+      Map<String, Command> eventMap, boolean useAllianceColor) {
+    super(drivetrain::getPose, drivetrain::resetOdometry, Constants.DRIVE_KIN, translationConstants,
+        rotationConstants, drivetrain::setModuleStates, eventMap, useAllianceColor, drivetrain);
+    this.drivetrain = drivetrain;
+    this.trajectoryCache = trajectoryCache;
+    this.translationConstants = translationConstants;
+    this.rotationConstants = rotationConstants;
+    this.useAllianceColor = useAllianceColor;
+  }
+
+  @Override
+  public CommandBase followPath(PathPlannerTrajectory trajectory) {
+    SampledTrajectory samples = trajectoryCache.getSampled(trajectory);
+    if (samples == null) {
+      return super.followPath(trajectory);
+    }
+    return new FollowSampledTrajectory(
+        drivetrain, samples, translationConstants, rotationConstants, useAllianceColor);
+  }
+}
@@ -4,50 +4,139 @@
 
 package frc.robot.commands.autonomous;
 
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.LoopTimings;
 import frc.robot.subsystems.SwerveDrivetrain;
 
 import static frc.robot.Constants.*;
 
-import com.kauailabs.navx.frc.AHRS;
-
+/**
+ * Runs an {@link AutoSequence} segment by segment. The sequence is compiled into primitive arrays
+ * here so execute only indexes into them. Distance and rotation segments close the loop on the
+ * pose estimator and give up after {@link frc.robot.Constants#AUTO_SEGMENT_TIMEOUT}.
+ */
 public class SimpleAutonomous extends CommandBase {
+  private static final int executeSpan = LoopTimings.register("Commands/SimpleAutonomous/Execute");
   private SwerveDrivetrain drivetrain;
-  private AHRS ahrs;
   private Timer timer = new Timer();
 
+  // Compiled sequence
+  private final int count;
+  private final int[] kinds;
+  private final double[] paramA;
+  private final double[] paramB;
+  private final double[] paramC;
+
+  private int segment;
+  private double startX;
+  private double startY;
+
   /** Creates a new SimpleAutonomous. */
-  public SimpleAutonomous(SwerveDrivetrain drivetrain, AHRS gyroscope) {
+  public SimpleAutonomous(SwerveDrivetrain drivetrain, AutoSequence sequence) {
     addRequirements(drivetrain);
     this.drivetrain = drivetrain;
-    this.ahrs = gyroscope;
+
+    count = sequence.segments.size();
+    kinds = new int[count];
+    paramA = new double[count];
+    paramB = new double[count];
+    paramC = new double[count];
+    for (int i = 0; i < count; i++) {
+      double[] row = sequence.segments.get(i);
+      kinds[i] = (int) row[0];
+      paramA[i] = row[1];
+      paramB[i] = row[2];
+      paramC[i] = row[3];
+    }
   }
 
   // Called when the command is initially scheduled.
   @Override
   public void initialize() {
     timer.start();
+    segment = 0;
+    startSegment();
   }
 
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
+    LoopTimings.start(executeSpan);
     timedAutoSequence();
+    LoopTimings.stop(executeSpan);
   }
 
   // Called once the command ends or is interrupted.
   @Override
-  public void end(boolean interrupted) {}
+  public void end(boolean interrupted) {
+    drivetrain.swerveDrive(0.0, 0.0, 0.0, true, false);
+  }
 
   private void timedAutoSequence() {
+    if (segment >= count) {
+      return;
+    }
+    if (runSegment(segment, drivetrain.getPose(), timer.get())) {
+      segment++;
+      startSegment();
+    }
+  }
+
+  private void startSegment() {
+    timer.reset();
+    Pose2d pose = drivetrain.getPose();
+    startX = pose.getX();
+    startY = pose.getY();
+  }
+
+  /** Drives the segment for one cycle; returns true once it's done. */
+  private boolean runSegment(int i, Pose2d pose, double elapsed) {
+    switch (kinds[i]) {
+      case AutoSequence.DRIVE_TIME:
+        if (elapsed >= paramA[i]) {
+          return true;
+        }
+        drivetrain.swerveDrive(paramB[i], paramC[i], 0.0, true, false);
+        return false;
+
+      case AutoSequence.DRIVE_DISTANCE: {
+        double directionX = Math.cos(paramB[i]);
+        double directionY = Math.sin(paramB[i]);
+        double traveled = (pose.getX() - startX) * directionX + (pose.getY() - startY) * directionY;
+        double remaining = paramA[i] - traveled;
+        if (remaining <= AUTO_POSITION_TOLERANCE || elapsed >= AUTO_SEGMENT_TIMEOUT) {
+          return true;
+        }
+        double speed = Math.min(paramC[i], AUTO_TRANSLATION_KP * remaining);
+        drivetrain.swerveDrive(directionX * speed, directionY * speed, 0.0, true, false);
+        return false;
+      }
+
+      case AutoSequence.ROTATE: {
+        double error = MathUtil.angleModulus(paramA[i] - pose.getRotation().getRadians());
+        if (Math.abs(error) <= Math.toRadians(AUTO_HEADING_TOLERANCE_DEGREES)
+            || elapsed >= AUTO_SEGMENT_TIMEOUT) {
+          return true;
+        }
+        double omega = MathUtil.clamp(
+            AUTO_ROTATION_KP * error, -DRIVETRAIN_MAX_TURN_SPEED, DRIVETRAIN_MAX_TURN_SPEED);
+        drivetrain.swerveDrive(0.0, 0.0, omega, true, false);
+        return false;
+      }
 
+      default:
+        drivetrain.swerveDrive(0.0, 0.0, 0.0, true, false);
+        return elapsed >= paramA[i];
+    }
   }
 
 
   // Returns true when the command should end.
   @Override
   public boolean isFinished() {
-    return false;
+    return segment >= count;
   }
 }
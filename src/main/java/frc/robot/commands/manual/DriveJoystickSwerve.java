@@ -4,13 +4,14 @@ import java.util.function.Supplier;
 
 import edu.wpi.first.math.MathUtil;
 import edu.wpi.first.math.filter.SlewRateLimiter;
-import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.wpilibj2.command.CommandBase;
+import frc.lib.util.LoopTimings;
 import frc.robot.Constants;
 import frc.robot.subsystems.SwerveDrivetrain;
 
 
 public class DriveJoystickSwerve extends CommandBase {
+  private static final int executeSpan = LoopTimings.register("Commands/DriveJoystickSwerve/Execute");
   /*
    * Creates a new DriveMecanum.
    */
@@ -20,6 +21,7 @@ public class DriveJoystickSwerve extends CommandBase {
   private Supplier<Boolean> fieldTOrientated, zeroHeading;
   boolean fieldDrive = true, onOff = false;
 
+  // Only used with the setpoint generator off; it limits acceleration otherwise
   private SlewRateLimiter translationLimiter = new SlewRateLimiter(2.0);
   private SlewRateLimiter strafeLimiter = new SlewRateLimiter(2.0);
   private SlewRateLimiter rotationLimiter = new SlewRateLimiter(4.0);
@@ -45,6 +47,7 @@ public class DriveJoystickSwerve extends CommandBase {
   // Called every time the scheduler runs while the command is scheduled.
   @Override
   public void execute() {
+    LoopTimings.start(executeSpan);
 
     if(zeroHeading.get()){
       drivetrain.zeroHeading();
@@ -57,19 +60,22 @@ public class DriveJoystickSwerve extends CommandBase {
     
 
     /* Get Values, Deadband */
-    double translationVal = translationLimiter
-        .calculate(MathUtil.applyDeadband(y.get(), Constants.SPEED_DEADBAND));
-    double strafeVal = strafeLimiter
-        .calculate(MathUtil.applyDeadband(x.get(), Constants.STRAFING_DEADBAND));
-    double rotationVal = rotationLimiter
-        .calculate(MathUtil.applyDeadband(z.get(), Constants.ROTATION_DEADBAND));
+    double translationVal = MathUtil.applyDeadband(y.get(), Constants.SPEED_DEADBAND);
+    double strafeVal = MathUtil.applyDeadband(x.get(), Constants.STRAFING_DEADBAND);
+    double rotationVal = MathUtil.applyDeadband(z.get(), Constants.ROTATION_DEADBAND);
+    if (!Constants.SETPOINT_GENERATOR) {
+      translationVal = translationLimiter.calculate(translationVal);
+      strafeVal = strafeLimiter.calculate(strafeVal);
+      rotationVal = rotationLimiter.calculate(rotationVal);
+    }
 
     if(fieldTOrientated.get()){
       fieldDrive = !fieldDrive;
     }
 
-    drivetrain.swerveDrive( new Translation2d(-translationVal * mult, strafeVal * mult),
+    drivetrain.swerveDrive(-translationVal * mult, strafeVal * mult,
       -rotationVal * 4, fieldDrive, false);
+    LoopTimings.stop(executeSpan);
   }
 
   // Called once the command ends or is interrupted.
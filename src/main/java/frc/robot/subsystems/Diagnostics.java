@@ -0,0 +1,58 @@
+package frc.robot.subsystems;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.util.CANMonitor;
+import frc.lib.util.DeviceConfigurator;
+import frc.lib.util.LoopTimings;
+import frc.lib.util.RuntimeMonitor;
+import frc.lib.util.SparkSetpointCache;
+
+/**
+ * Runs the per-cycle monitors from the scheduler instead of a hand-ordered list in robotPeriodic.
+ * Each monitor gets its own loop timing span under "Diagnostics/", so their cost shows up like any
+ * other subsystem's. Create it before the other subsystems so it runs first each cycle, right after
+ * {@link LoopTimings#beginCycle()} closed the previous one.
+ */
+public class Diagnostics extends SubsystemBase {
+  private static final class Monitor {
+    final Runnable periodic;
+    final int span;
+
+    Monitor(String name, Runnable periodic) {
+      this.periodic = periodic;
+      span = LoopTimings.register("Diagnostics/" + name);
+    }
+  }
+
+  private final List<Monitor> monitors = new ArrayList<>();
+
+  public Diagnostics() {
+    // First, so its allocation and GC numbers line up with the cycle LoopTimings just closed
+    add("RuntimeMonitor", RuntimeMonitor::periodic);
+    add("DeviceConfigurator", DeviceConfigurator::periodic);
+    add("CANMonitor", CANMonitor::periodic);
+    add("SparkSetpointCache", SparkSetpointCache::periodic);
+  }
+
+  /**
+   * Adds a monitor, run once per cycle in the order added.
+   * @param name Name of its loop timing span.
+   * @param periodic The monitor's per-cycle step.
+   */
+  private void add(String name, Runnable periodic) {
+    monitors.add(new Monitor(name, periodic));
+  }
+
+  @Override
+  public void periodic() {
+    for (int i = 0; i < monitors.size(); i++) {
+      Monitor monitor = monitors.get(i);
+      LoopTimings.start(monitor.span);
+      monitor.periodic.run();
+      LoopTimings.stop(monitor.span);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/** Hardware interface for the drivetrain gyro. */
+public interface GyroIO {
+  /** Does nothing, for simulation, replay and warm-up. Shared for the same reason as {@link ModuleIO#NONE}. */
+  public static final GyroIO NONE = new GyroIO() {};
+
+  /** Everything read from the gyro in one cycle. */
+  public static class GyroIOInputs implements LoggableInputs {
+    public boolean connected = false;
+    /** When the sample was captured, in FPGA seconds. */
+    public double timestampSecs = 0.0;
+    public double yawDegrees = 0.0;
+    public double angleDegrees = 0.0;
+    public double pitchDegrees = 0.0;
+    public double rollDegrees = 0.0;
+    public double rateXDegreesPerSec = 0.0;
+    public double rateYDegreesPerSec = 0.0;
+    public double rateZDegreesPerSec = 0.0;
+    /** High-rate odometry samples drained this cycle: FPGA seconds and raw yaw in degrees. */
+    public double[] odometryTimestamps = new double[0];
+    public double[] odometryYawDegrees = new double[0];
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("Connected", connected);
+      table.put("TimestampSecs", timestampSecs);
+      table.put("YawDegrees", yawDegrees);
+      table.put("AngleDegrees", angleDegrees);
+      table.put("PitchDegrees", pitchDegrees);
+      table.put("RollDegrees", rollDegrees);
+      table.put("RateXDegreesPerSec", rateXDegreesPerSec);
+      table.put("RateYDegreesPerSec", rateYDegreesPerSec);
+      table.put("RateZDegreesPerSec", rateZDegreesPerSec);
+      table.put("OdometryTimestamps", odometryTimestamps);
+      table.put("OdometryYawDegrees", odometryYawDegrees);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      connected = table.getBoolean("Connected", connected);
+      timestampSecs = table.getDouble("TimestampSecs", timestampSecs);
+      yawDegrees = table.getDouble("YawDegrees", yawDegrees);
+      angleDegrees = table.getDouble("AngleDegrees", angleDegrees);
+      pitchDegrees = table.getDouble("PitchDegrees", pitchDegrees);
+      rollDegrees = table.getDouble("RollDegrees", rollDegrees);
+      rateXDegreesPerSec = table.getDouble("RateXDegreesPerSec", rateXDegreesPerSec);
+      rateYDegreesPerSec = table.getDouble("RateYDegreesPerSec", rateYDegreesPerSec);
+      rateZDegreesPerSec = table.getDouble("RateZDegreesPerSec", rateZDegreesPerSec);
+      odometryTimestamps = table.getDoubleArray("OdometryTimestamps", odometryTimestamps);
+      odometryYawDegrees = table.getDoubleArray("OdometryYawDegrees", odometryYawDegrees);
+    }
+  }
+
+  /** Reads every gyro value into the inputs snapshot. */
+  public default void updateInputs(GyroIOInputs inputs) {}
+
+  /** Reads the yaw straight from hardware. Called from the odometry thread. */
+  public default double getOdometryYawDegrees() {
+    return 0.0;
+  }
+
+  /**
+   * Reads tilt straight from hardware as {pitch, roll, pitch rate, roll rate} in degrees and
+   * degrees per second. Called from the balance notifier.
+   */
+  public default void readTilt(double[] out) {
+    out[0] = 0.0;
+    out[1] = 0.0;
+    out[2] = 0.0;
+    out[3] = 0.0;
+  }
+
+  /** Zeroes the yaw. */
+  public default void zeroYaw() {}
+
+  /** Starts a gyro calibration. */
+  public default void calibrate() {}
+}
@@ -0,0 +1,54 @@
+package frc.robot.subsystems;
+
+/** GyroIO backed by the NavX, read through the {@link GyroService} that owns it. */
+public class GyroIONavX implements GyroIO {
+  private final GyroService service;
+  // Separate buffers since the main loop and the balance notifier read at the same time
+  private final double[] sample = new double[GyroService.SAMPLE_SIZE];
+  private final double[] tiltSample = new double[GyroService.SAMPLE_SIZE];
+
+  public GyroIONavX(GyroService service) {
+    this.service = service;
+  }
+
+  @Override
+  public void updateInputs(GyroIOInputs inputs) {
+    inputs.connected = service.isConnected() && service.readLatest(sample);
+    if (!inputs.connected) {
+      return;
+    }
+    inputs.timestampSecs = sample[GyroService.TIMESTAMP];
+    inputs.yawDegrees = sample[GyroService.YAW];
+    inputs.angleDegrees = sample[GyroService.ANGLE];
+    inputs.pitchDegrees = sample[GyroService.PITCH];
+    inputs.rollDegrees = sample[GyroService.ROLL];
+    inputs.rateXDegreesPerSec = sample[GyroService.RATE_X];
+    inputs.rateYDegreesPerSec = sample[GyroService.RATE_Y];
+    inputs.rateZDegreesPerSec = sample[GyroService.RATE_Z];
+  }
+
+  @Override
+  public double getOdometryYawDegrees() {
+    return service.getYawDegrees();
+  }
+
+  @Override
+  public void readTilt(double[] out) {
+    service.readLatest(tiltSample);
+    out[0] = tiltSample[GyroService.PITCH];
+    out[1] = tiltSample[GyroService.ROLL];
+    // The NavX pitches about its X axis and rolls about its Y axis
+    out[2] = tiltSample[GyroService.RATE_X];
+    out[3] = tiltSample[GyroService.RATE_Y];
+  }
+
+  @Override
+  public void zeroYaw() {
+    service.zeroYaw();
+  }
+
+  @Override
+  public void calibrate() {
+    service.calibrate();
+  }
+}
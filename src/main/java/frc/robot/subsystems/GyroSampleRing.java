@@ -0,0 +1,98 @@
+package frc.robot.subsystems;
+
+import java.lang.invoke.VarHandle;
+
+/**
+ * Ring of timestamped gyro samples with one writer and any number of readers. Readers only ever
+ * want the newest sample, so the writer never waits: it overwrites the oldest slot, and a reader
+ * that was lapped mid-copy retries. Split out of {@link GyroService} so it can be tested without
+ * a NavX.
+ */
+class GyroSampleRing {
+  private final int capacity;
+  private final int mask;
+
+  // Angle is the continuous yaw, before any zero offset
+  private final double[] timestamps;
+  private final double[] angles;
+  private final double[] pitches;
+  private final double[] rolls;
+  private final double[] ratesX;
+  private final double[] ratesY;
+  private final double[] ratesZ;
+  private volatile long writeCount = 0;
+
+  /** @param capacity Number of samples held, a power of two so indexes can be masked. */
+  GyroSampleRing(int capacity) {
+    if (Integer.bitCount(capacity) != 1 || capacity < 4) {
+      throw new IllegalArgumentException("Gyro ring capacity must be a power of two, at least 4");
+    }
+    this.capacity = capacity;
+    mask = capacity - 1;
+    timestamps = new double[capacity];
+    angles = new double[capacity];
+    pitches = new double[capacity];
+    rolls = new double[capacity];
+    ratesX = new double[capacity];
+    ratesY = new double[capacity];
+    ratesZ = new double[capacity];
+  }
+
+  /** Adds a sample. Writer thread only. */
+  void write(double timestamp, double angle, double pitch, double roll,
+      double rateX, double rateY, double rateZ) {
+    long write = writeCount;
+    int slot = (int) (write & mask);
+    // Keeps these stores from becoming visible before the last sample was published
+    VarHandle.storeStoreFence();
+    timestamps[slot] = timestamp;
+    angles[slot] = angle;
+    pitches[slot] = pitch;
+    rolls[slot] = roll;
+    ratesX[slot] = rateX;
+    ratesY[slot] = rateY;
+    ratesZ[slot] = rateZ;
+    // Volatile write publishes the slot to readers
+    writeCount = write + 1;
+  }
+
+  /**
+   * Copies the newest sample into out at {@link GyroService}'s indexes. Everything but
+   * {@link GyroService#YAW} is filled, and {@link GyroService#ANGLE} is the raw continuous angle.
+   * @return False if nothing has been written yet.
+   */
+  boolean readLatest(double[] out) {
+    while (true) {
+      long write = writeCount;
+      if (write == 0) {
+        return false;
+      }
+      int slot = (int) ((write - 1) & mask);
+      out[GyroService.TIMESTAMP] = timestamps[slot];
+      out[GyroService.ANGLE] = angles[slot];
+      out[GyroService.PITCH] = pitches[slot];
+      out[GyroService.ROLL] = rolls[slot];
+      out[GyroService.RATE_X] = ratesX[slot];
+      out[GyroService.RATE_Y] = ratesY[slot];
+      out[GyroService.RATE_Z] = ratesZ[slot];
+      // The copy has to finish before the writer's position is checked again
+      VarHandle.loadLoadFence();
+      // The writer only reuses the slot after going all the way around the ring
+      if (writeCount - write < capacity - 1) {
+        return true;
+      }
+    }
+  }
+
+  /** The newest raw angle, NaN if nothing has been written yet. */
+  double latestAngle() {
+    long write = writeCount;
+    // One value, so if the writer laps this slot the read just gets a newer sample
+    return write == 0 ? Double.NaN : angles[(int) ((write - 1) & mask)];
+  }
+
+  /** Samples written since construction. */
+  long getWriteCount() {
+    return writeCount;
+  }
+}
@@ -0,0 +1,119 @@
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import com.kauailabs.navx.AHRSProtocol.AHRSUpdateBase;
+import com.kauailabs.navx.frc.AHRS;
+import com.kauailabs.navx.frc.ITimestampedDataSubscriber;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.wpilibj.SPI;
+import frc.lib.util.RealTime;
+import frc.robot.Constants;
+
+/**
+ * Owns the robot's only NavX. Every update the NavX pushes is copied by its data callback into a
+ * ring of timestamped primitive samples, so readers on any thread get the newest yaw, rates and
+ * tilt without going through the driver or polling the hardware themselves.
+ *
+ * <p>The yaw is zeroed with an offset kept here instead of on the device, so a zero applies to the
+ * very next read, and it's zeroed automatically once the NavX finishes its startup calibration.
+ * The samples go in a {@link GyroSampleRing}, written only by the NavX's IO thread.
+ */
+public class GyroService implements ITimestampedDataSubscriber {
+  /** Ring capacity, a power of two so indexes can be masked. */
+  public static final int CAPACITY = 32;
+  // The NavX's fastest update rate
+  private static final byte UPDATE_RATE_HZ = (byte) 200;
+
+  /** Layout of a sample copied out by {@link #readLatest(double[])}. */
+  public static final int TIMESTAMP = 0;
+  public static final int YAW = 1;
+  public static final int ANGLE = 2;
+  public static final int PITCH = 3;
+  public static final int ROLL = 4;
+  public static final int RATE_X = 5;
+  public static final int RATE_Y = 6;
+  public static final int RATE_Z = 7;
+  public static final int SAMPLE_SIZE = 8;
+
+  private final AHRS gyro;
+  private final GyroSampleRing ring = new GyroSampleRing(CAPACITY);
+
+  private volatile double angleOffset = 0.0;
+  private volatile boolean zeroAfterCalibration = true;
+
+  // Callback thread only
+  private double lastRawYaw = Double.NaN;
+  private double unwrappedAngle = 0.0;
+  private boolean promoted = false;
+
+  public GyroService() {
+    gyro = new AHRS(SPI.Port.kMXP, UPDATE_RATE_HZ);
+    gyro.registerCallback(this, null);
+  }
+
+  /** Runs on the NavX IO thread for every update. */
+  @Override
+  public void timestampedDataReceived(
+      long systemTimestamp, long sensorTimestamp, AHRSUpdateBase update, Object context) {
+    if (!promoted) {
+      RealTime.promoteCurrentThread(Constants.SENSOR_THREAD_PRIORITY, "NavX IO thread");
+      promoted = true;
+    }
+    double yaw = update.yaw;
+    unwrappedAngle = Double.isNaN(lastRawYaw)
+        ? yaw
+        : unwrappedAngle + MathUtil.inputModulus(yaw - lastRawYaw, -180.0, 180.0);
+    lastRawYaw = yaw;
+
+    // Stamped on the FPGA clock like the odometry samples; the callback's own stamp is in whole ms
+    ring.write(Logger.getInstance().getRealTimestamp() / 1.0e6, unwrappedAngle, update.pitch,
+        update.roll, gyro.getRawGyroX(), gyro.getRawGyroY(), gyro.getRawGyroZ());
+
+    if (zeroAfterCalibration && !gyro.isCalibrating()) {
+      angleOffset = unwrappedAngle;
+      zeroAfterCalibration = false;
+    }
+  }
+
+  /**
+   * Copies the newest sample into out, laid out as {@link #TIMESTAMP} through {@link #RATE_Z}.
+   * Timestamps are FPGA seconds, angles degrees and rates degrees per second. Yaw is wrapped to
+   * [-180, 180) and angle is continuous, both relative to the last zero.
+   * @return False if the NavX hasn't sent anything yet.
+   */
+  public boolean readLatest(double[] out) {
+    if (!ring.readLatest(out)) {
+      return false;
+    }
+    double angle = out[ANGLE] - angleOffset;
+    out[ANGLE] = angle;
+    out[YAW] = MathUtil.inputModulus(angle, -180.0, 180.0);
+    return true;
+  }
+
+  /** The newest yaw in degrees, wrapped to [-180, 180). 0 before the first update. */
+  public double getYawDegrees() {
+    double angle = ring.latestAngle();
+    return Double.isNaN(angle) ? 0.0 : MathUtil.inputModulus(angle - angleOffset, -180.0, 180.0);
+  }
+
+  public boolean isConnected() {
+    return gyro.isConnected();
+  }
+
+  /** Makes the current heading zero. */
+  public void zeroYaw() {
+    double angle = ring.latestAngle();
+    if (!Double.isNaN(angle)) {
+      angleOffset = angle;
+    }
+  }
+
+  /** Starts a calibration, and zeroes the yaw again once it finishes. */
+  public void calibrate() {
+    gyro.calibrate();
+    zeroAfterCalibration = true;
+  }
+}
@@ -0,0 +1,75 @@
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/** Hardware interface for a single swerve module. */
+public interface ModuleIO {
+  /**
+   * Does nothing, for replay and warm-up. Shared so module call sites see at most this class and the
+   * mode's real IO, which the JIT can still inline.
+   */
+  public static final ModuleIO NONE = new ModuleIO() {};
+
+  /**
+   * Everything read from a module's hardware in one cycle. Filled once at the top of the loop so
+   * every consumer sees the same values without going back through the JNI.
+   */
+  public static class ModuleIOInputs implements LoggableInputs {
+    public boolean configured = true;
+    public double drivePositionMeters = 0.0;
+    public double driveVelocityMetersPerSec = 0.0;
+    public double turnPositionDegrees = 0.0;
+    public double absolutePositionDegrees = 0.0;
+    /** High-rate odometry samples drained this cycle, matching the gyro's odometry timestamps. */
+    public double[] odometryDrivePositionsMeters = new double[0];
+    public double[] odometryTurnPositionsDegrees = new double[0];
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("Configured", configured);
+      table.put("DrivePositionMeters", drivePositionMeters);
+      table.put("DriveVelocityMetersPerSec", driveVelocityMetersPerSec);
+      table.put("TurnPositionDegrees", turnPositionDegrees);
+      table.put("AbsolutePositionDegrees", absolutePositionDegrees);
+      table.put("OdometryDrivePositionsMeters", odometryDrivePositionsMeters);
+      table.put("OdometryTurnPositionsDegrees", odometryTurnPositionsDegrees);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      configured = table.getBoolean("Configured", configured);
+      drivePositionMeters = table.getDouble("DrivePositionMeters", drivePositionMeters);
+      driveVelocityMetersPerSec = table.getDouble("DriveVelocityMetersPerSec", driveVelocityMetersPerSec);
+      turnPositionDegrees = table.getDouble("TurnPositionDegrees", turnPositionDegrees);
+      absolutePositionDegrees = table.getDouble("AbsolutePositionDegrees", absolutePositionDegrees);
+      odometryDrivePositionsMeters = table.getDoubleArray("OdometryDrivePositionsMeters", odometryDrivePositionsMeters);
+      odometryTurnPositionsDegrees = table.getDoubleArray("OdometryTurnPositionsDegrees", odometryTurnPositionsDegrees);
+    }
+  }
+
+  /** Reads every sensor on the module into the inputs snapshot. */
+  public default void updateInputs(ModuleIOInputs inputs) {}
+
+  /** Reads the drive position straight from hardware. Called from the odometry thread. */
+  public default double getOdometryDrivePositionMeters() {
+    return 0.0;
+  }
+
+  /** Reads the turn position straight from hardware. Called from the odometry thread. */
+  public default double getOdometryTurnPositionDegrees() {
+    return 0.0;
+  }
+
+  /** Runs the drive motor at a velocity with an arbitrary feedforward in volts. */
+  public default void setDriveVelocity(double velocityMetersPerSec, double ffVolts) {}
+
+  /** Runs the drive motor open loop at a percent output. */
+  public default void setDrivePercent(double percent) {}
+
+  /** Runs the turn motor to a position in degrees with an arbitrary feedforward in volts. */
+  public default void setTurnPosition(double degrees, double ffVolts) {}
+
+  /** Resets the turn motor's relative encoder to a position in degrees. */
+  public default void resetTurnPosition(double degrees) {}
+}
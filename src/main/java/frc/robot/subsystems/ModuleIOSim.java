@@ -0,0 +1,101 @@
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.controller.PIDController;
+import edu.wpi.first.math.system.plant.DCMotor;
+import edu.wpi.first.wpilibj.simulation.DCMotorSim;
+import edu.wpi.first.wpilibj.simulation.FlywheelSim;
+import frc.robot.Constants;
+
+/**
+ * Physics sim of a module. The drive is a flywheel and the turn is a DC motor sim, and the Spark
+ * Max onboard velocity and position loops are stood in for by WPILib PID controllers.
+ */
+public class ModuleIOSim implements ModuleIO {
+  private static final double DRIVE_KP = 0.5; // Volts per m/s of error
+  private static final double TURN_KP = 0.15; // Volts per degree of error
+  private static final double DRIVE_MOI = 0.025;
+  private static final double TURN_MOI = 0.004;
+
+  private final FlywheelSim driveSim =
+      new FlywheelSim(DCMotor.getNEO(1), Constants.DRIVE_MOTOR_GEAR_RATIO, DRIVE_MOI);
+  private final DCMotorSim turnSim =
+      new DCMotorSim(DCMotor.getNEO(1), Constants.TURN_MOTOR_GEAR_RATIO, TURN_MOI);
+
+  private final PIDController driveController = new PIDController(DRIVE_KP, 0.0, 0.0);
+  private final PIDController turnController = new PIDController(TURN_KP, 0.0, 0.0);
+
+  private double drivePositionMeters = 0.0;
+  private double driveVelocityMetersPerSec = 0.0;
+  private double turnPositionDegrees = 0.0;
+  private double turnRelativeOffsetDegrees = 0.0;
+
+  private double driveAppliedVolts = 0.0;
+  private double turnAppliedVolts = 0.0;
+  private double lastTimestampSecs = Double.NaN;
+
+  public ModuleIOSim() {
+    turnController.enableContinuousInput(-180.0, 180.0);
+    // Start the modules at random angles like real modules after power on
+    turnSim.setState(Math.random() * 2.0 * Math.PI, 0.0);
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    // Step by the time since the last update, so the physics keeps up whatever the loop period
+    double now = Logger.getInstance().getTimestamp() / 1.0e6;
+    double dt = Double.isNaN(lastTimestampSecs) ? Constants.LOOP_PERIOD_SECS : now - lastTimestampSecs;
+    lastTimestampSecs = now;
+
+    driveSim.setInputVoltage(driveAppliedVolts);
+    turnSim.setInputVoltage(turnAppliedVolts);
+    driveSim.update(dt);
+    turnSim.update(dt);
+
+    driveVelocityMetersPerSec = driveSim.getAngularVelocityRadPerSec() * Constants.WHEEL_DIAMETER / 2.0;
+    drivePositionMeters += driveVelocityMetersPerSec * dt;
+    double absoluteDegrees = MathUtil.inputModulus(
+        Math.toDegrees(turnSim.getAngularPositionRad()), -180.0, 180.0);
+    turnPositionDegrees = Math.toDegrees(turnSim.getAngularPositionRad()) + turnRelativeOffsetDegrees;
+
+    inputs.drivePositionMeters = drivePositionMeters;
+    inputs.driveVelocityMetersPerSec = driveVelocityMetersPerSec;
+    inputs.turnPositionDegrees = turnPositionDegrees;
+    inputs.absolutePositionDegrees = absoluteDegrees;
+  }
+
+  @Override
+  public double getOdometryDrivePositionMeters() {
+    return drivePositionMeters;
+  }
+
+  @Override
+  public double getOdometryTurnPositionDegrees() {
+    return turnPositionDegrees;
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSec, double ffVolts) {
+    driveAppliedVolts = MathUtil.clamp(
+        ffVolts + driveController.calculate(driveVelocityMetersPerSec, velocityMetersPerSec), -12.0, 12.0);
+  }
+
+  @Override
+  public void setDrivePercent(double percent) {
+    driveAppliedVolts = MathUtil.clamp(percent * 12.0, -12.0, 12.0);
+  }
+
+  @Override
+  public void setTurnPosition(double degrees, double ffVolts) {
+    turnAppliedVolts = MathUtil.clamp(
+        ffVolts + turnController.calculate(turnPositionDegrees, degrees), -12.0, 12.0);
+  }
+
+  @Override
+  public void resetTurnPosition(double degrees) {
+    turnRelativeOffsetDegrees = degrees - Math.toDegrees(turnSim.getAngularPositionRad());
+    turnPositionDegrees = degrees;
+  }
+}
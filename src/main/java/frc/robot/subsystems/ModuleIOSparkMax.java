@@ -0,0 +1,242 @@
+package frc.robot.subsystems;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.ctre.phoenix.ErrorCode;
+import com.ctre.phoenix.sensors.CANCoder;
+import com.revrobotics.CANSparkMax;
+import com.revrobotics.REVLibError;
+import com.revrobotics.RelativeEncoder;
+import com.revrobotics.SparkMaxPIDController;
+import com.revrobotics.CANSparkMax.ControlType;
+import com.revrobotics.CANSparkMax.IdleMode;
+import com.revrobotics.CANSparkMaxLowLevel.MotorType;
+import com.revrobotics.SparkMaxPIDController.ArbFFUnits;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import frc.lib.SwerveModuleConstants;
+import frc.lib.util.CANMonitor;
+import frc.lib.util.DeviceConfig;
+import frc.lib.util.DeviceConfigurator;
+import frc.lib.util.SparkSetpointCache;
+import frc.lib.util.StatusFrameScheduler;
+import frc.lib.util.StatusFrameScheduler.Role;
+import frc.robot.Constants;
+import frc.robot.Robot;
+
+/** ModuleIO for a module with two Spark Maxes and a CANCoder. */
+public class ModuleIOSparkMax implements ModuleIO {
+  private static final int CONFIG_TIMEOUT_MS = 100;
+  // CANCoder frames carry a timestamp; Spark Max staleness is inferred from readings changing, which
+  // they only reliably do while driven, and their slowest status frame is 500ms
+  private static final double CANCODER_STALE_SECS = 0.5;
+  private static final double SPARK_STALE_SECS = 2.0;
+  // Setpoint changes smaller than these aren't worth a control frame: meters per second or duty
+  // cycle for the drive, degrees for the turn
+  private static final double DRIVE_SETPOINT_TOLERANCE = 0.005;
+  private static final double TURN_SETPOINT_TOLERANCE = 0.05;
+
+  private final CANSparkMax driveMotor;
+  private final CANSparkMax turnMotor;
+
+  private final RelativeEncoder driveEncoder;
+  private final RelativeEncoder turnEncoder;
+
+  private final SparkMaxPIDController driveController;
+  private final SparkMaxPIDController turnPIDController;
+  private final CANCoder absoluteEncoder;
+  private final SparkSetpointCache driveSetpoint = new SparkSetpointCache(DRIVE_SETPOINT_TOLERANCE);
+  private final SparkSetpointCache turnSetpoint = new SparkSetpointCache(TURN_SETPOINT_TOLERANCE);
+
+  private final CompletableFuture<Boolean> angleEncoderConfigured;
+  private final CompletableFuture<Boolean> driveConfigured;
+  private final CompletableFuture<Boolean> turnConfigured;
+  private final String name;
+  // Main thread only
+  private boolean configured = false;
+  private boolean faultReported = false;
+
+  /**
+   * Creates the devices and queues their configuration on the {@link DeviceConfigurator} pool.
+   * Nothing is commanded until all three devices have configured successfully; if any fails the
+   * module stays idle and a fault is reported. Status frame periods
+   * are left to the {@link StatusFrameScheduler}, and unchanged setpoints are skipped by a
+   * {@link SparkSetpointCache} per motor.
+   */
+  public ModuleIOSparkMax(SwerveModuleConstants moduleConstants) {
+    name = "Module with Spark " + moduleConstants.driveMotorID;
+    absoluteEncoder = new CANCoder(moduleConstants.cancoderID);
+    angleEncoderConfigured = DeviceConfigurator.submit(configAngleEncoder(moduleConstants.cancoderID));
+    StatusFrameScheduler.register(absoluteEncoder, angleEncoderConfigured);
+
+    driveMotor = new CANSparkMax(moduleConstants.driveMotorID, MotorType.kBrushless);
+    driveEncoder = driveMotor.getEncoder();
+    driveController = driveMotor.getPIDController();
+    driveConfigured = DeviceConfigurator.submit(configDriveMotor(moduleConstants.driveMotorInverted));
+    StatusFrameScheduler.register(driveMotor, Role.DRIVE, driveConfigured);
+
+    turnMotor = new CANSparkMax(moduleConstants.angleMotorID, MotorType.kBrushless);
+    turnEncoder = turnMotor.getEncoder();
+    turnPIDController = turnMotor.getPIDController();
+    turnConfigured = DeviceConfigurator.submit(configTurnMotor(moduleConstants.angleMotorInverted));
+    StatusFrameScheduler.register(turnMotor, Role.TURN, turnConfigured);
+
+    CANMonitor.register("CANCoder " + moduleConstants.cancoderID,
+        absoluteEncoder::getLastTimestamp, CANCODER_STALE_SECS);
+    CANMonitor.register("Spark " + moduleConstants.driveMotorID,
+        () -> driveMotor.getBusVoltage() + driveMotor.getOutputCurrent() + driveEncoder.getVelocity(),
+        SPARK_STALE_SECS, true);
+    CANMonitor.register("Spark " + moduleConstants.angleMotorID,
+        () -> turnMotor.getBusVoltage() + turnMotor.getOutputCurrent() + turnEncoder.getPosition(),
+        SPARK_STALE_SECS, true);
+  }
+
+  /** Whether all three devices configured successfully. Reports a fault once if any failed. */
+  private boolean isConfigured() {
+    if (configured || faultReported) {
+      return configured;
+    }
+    if (!angleEncoderConfigured.isDone() || !driveConfigured.isDone() || !turnConfigured.isDone()) {
+      return false;
+    }
+    configured = succeeded(angleEncoderConfigured) && succeeded(driveConfigured) && succeeded(turnConfigured);
+    if (!configured) {
+      faultReported = true;
+      DriverStation.reportError(name + " failed to configure, leaving it idle", false);
+    }
+    return configured;
+  }
+
+  /** Whether a finished configuration completed normally with true. */
+  private static boolean succeeded(CompletableFuture<Boolean> future) {
+    return !future.isCompletedExceptionally() && Boolean.TRUE.equals(future.getNow(false));
+  }
+
+  @Override
+  public void updateInputs(ModuleIOInputs inputs) {
+    inputs.configured = isConfigured();
+    inputs.drivePositionMeters = driveEncoder.getPosition();
+    inputs.driveVelocityMetersPerSec = driveEncoder.getVelocity();
+    inputs.turnPositionDegrees = turnEncoder.getPosition();
+    inputs.absolutePositionDegrees = absoluteEncoder.getAbsolutePosition();
+  }
+
+  @Override
+  public double getOdometryDrivePositionMeters() {
+    return driveEncoder.getPosition();
+  }
+
+  @Override
+  public double getOdometryTurnPositionDegrees() {
+    return turnEncoder.getPosition();
+  }
+
+  @Override
+  public void setDriveVelocity(double velocityMetersPerSec, double ffVolts) {
+    if (!isConfigured() || !driveSetpoint.shouldSend(ControlType.kVelocity, velocityMetersPerSec, ffVolts)) {
+      return;
+    }
+    driveController.setReference(
+        velocityMetersPerSec, ControlType.kVelocity, 0, ffVolts, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void setDrivePercent(double percent) {
+    if (!isConfigured() || !driveSetpoint.shouldSend(ControlType.kDutyCycle, percent, 0.0)) {
+      return;
+    }
+    driveMotor.set(percent);
+  }
+
+  @Override
+  public void setTurnPosition(double degrees, double ffVolts) {
+    if (!isConfigured() || !turnSetpoint.shouldSend(ControlType.kPosition, degrees, ffVolts)) {
+      return;
+    }
+    turnPIDController.setReference(degrees, ControlType.kPosition, 0, ffVolts, ArbFFUnits.kVoltage);
+  }
+
+  @Override
+  public void resetTurnPosition(double degrees) {
+    if (!isConfigured()) {
+      return;
+    }
+    turnEncoder.setPosition(degrees);
+    // The same reference means a different angle now
+    turnSetpoint.invalidate();
+  }
+
+  private DeviceConfig configAngleEncoder(int id) {
+    return new DeviceConfig("CANCoder " + id)
+        .factoryReset(() -> absoluteEncoder.configFactoryDefault(CONFIG_TIMEOUT_MS) == ErrorCode.OK)
+        .parameter("AllSettings", "swerveCanCoderConfig", () -> absoluteEncoder.configAllSettings(
+            Robot.ctreConfigs.swerveCanCoderConfig, CONFIG_TIMEOUT_MS) == ErrorCode.OK);
+  }
+
+  private DeviceConfig configTurnMotor(boolean inverted) {
+    return new DeviceConfig("Spark " + turnMotor.getDeviceId())
+        .persistTo("Spark " + turnMotor.getDeviceId() + " Config")
+        .factoryReset(() -> turnMotor.restoreFactoryDefaults() == REVLibError.kOk)
+        .parameter("Inverted", inverted, () -> {
+          turnMotor.setInverted(inverted);
+          return true;
+        }, () -> turnMotor.getInverted() == inverted)
+        .parameter("SmartCurrentLimit", 30, () -> turnMotor.setSmartCurrentLimit(30) == REVLibError.kOk)
+        .parameter("IdleMode", IdleMode.kCoast, () -> turnMotor.setIdleMode(IdleMode.kCoast) == REVLibError.kOk,
+            () -> turnMotor.getIdleMode() == IdleMode.kCoast)
+        .parameter("PositionConversionFactor", Constants.TURN_MOTOR_PCONVERSION,
+            () -> turnEncoder.setPositionConversionFactor(Constants.TURN_MOTOR_PCONVERSION) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnEncoder.getPositionConversionFactor(), Constants.TURN_MOTOR_PCONVERSION))
+        .parameter("PositionWrappingEnabled", true,
+            () -> turnPIDController.setPositionPIDWrappingEnabled(true) == REVLibError.kOk,
+            () -> turnPIDController.getPositionPIDWrappingEnabled())
+        .parameter("PositionWrappingMinInput", -180.0,
+            () -> turnPIDController.setPositionPIDWrappingMinInput(-180.0) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getPositionPIDWrappingMinInput(), -180.0))
+        .parameter("PositionWrappingMaxInput", 180.0,
+            () -> turnPIDController.setPositionPIDWrappingMaxInput(180.0) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getPositionPIDWrappingMaxInput(), 180.0))
+        .parameter("P", Constants.ROTATE_KP, () -> turnPIDController.setP(Constants.ROTATE_KP) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getP(), Constants.ROTATE_KP))
+        .parameter("I", Constants.ROTATE_KI, () -> turnPIDController.setI(Constants.ROTATE_KI) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getI(), Constants.ROTATE_KI))
+        .parameter("D", Constants.ROTATE_KD, () -> turnPIDController.setD(Constants.ROTATE_KD) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getD(), Constants.ROTATE_KD))
+        .parameter("FF", 0.0, () -> turnPIDController.setFF(0.0) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnPIDController.getFF(), 0.0))
+        .parameter("VoltageCompensation", 12.0, () -> turnMotor.enableVoltageCompensation(12) == REVLibError.kOk,
+            () -> DeviceConfig.matches(turnMotor.getVoltageCompensationNominalVoltage(), 12))
+        .burnFlash(() -> turnMotor.burnFlash() == REVLibError.kOk);
+  }
+
+  private DeviceConfig configDriveMotor(boolean inverted) {
+    return new DeviceConfig("Spark " + driveMotor.getDeviceId())
+        .persistTo("Spark " + driveMotor.getDeviceId() + " Config")
+        .factoryReset(() -> driveMotor.restoreFactoryDefaults() == REVLibError.kOk)
+        .parameter("Inverted", inverted, () -> {
+          driveMotor.setInverted(inverted);
+          return true;
+        }, () -> driveMotor.getInverted() == inverted)
+        .parameter("SmartCurrentLimit", 40, () -> driveMotor.setSmartCurrentLimit(40) == REVLibError.kOk)
+        .parameter("IdleMode", IdleMode.kBrake, () -> driveMotor.setIdleMode(IdleMode.kBrake) == REVLibError.kOk,
+            () -> driveMotor.getIdleMode() == IdleMode.kBrake)
+        .parameter("VelocityConversionFactor", Constants.DRIVE_MOTOR_VCONVERSION,
+            () -> driveEncoder.setVelocityConversionFactor(Constants.DRIVE_MOTOR_VCONVERSION) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveEncoder.getVelocityConversionFactor(), Constants.DRIVE_MOTOR_VCONVERSION))
+        .parameter("PositionConversionFactor", Constants.DRIVE_MOTOR_PCONVERSION,
+            () -> driveEncoder.setPositionConversionFactor(Constants.DRIVE_MOTOR_PCONVERSION) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveEncoder.getPositionConversionFactor(), Constants.DRIVE_MOTOR_PCONVERSION))
+        .parameter("P", Constants.ROTATE_KP, () -> driveController.setP(Constants.ROTATE_KP) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveController.getP(), Constants.ROTATE_KP))
+        .parameter("I", Constants.ROTATE_KI, () -> driveController.setI(Constants.ROTATE_KI) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveController.getI(), Constants.ROTATE_KI))
+        .parameter("D", Constants.ROTATE_KD, () -> driveController.setD(Constants.ROTATE_KD) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveController.getD(), Constants.ROTATE_KD))
+        .parameter("FF", 0.0, () -> driveController.setFF(0.0) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveController.getFF(), 0.0))
+        .parameter("VoltageCompensation", 12.0, () -> driveMotor.enableVoltageCompensation(12) == REVLibError.kOk,
+            () -> DeviceConfig.matches(driveMotor.getVoltageCompensationNominalVoltage(), 12))
+        .burnFlash(() -> driveMotor.burnFlash() == REVLibError.kOk)
+        .apply("ZeroPosition", () -> driveEncoder.setPosition(0.0) == REVLibError.kOk);
+  }
+}
@@ -0,0 +1,97 @@
+package frc.robot.subsystems;
+
+/**
+ * Single-producer single-consumer ring of odometry samples, each a timestamp, a yaw, and a drive
+ * and turn position per module, all primitives. When the ring is full new samples are dropped, so
+ * what the consumer gets stays continuous. Split out of {@link OdometryThread} so it can be tested
+ * without a notifier.
+ */
+class OdometryRing {
+  private final int capacity;
+  private final int mask;
+  private final int moduleCount;
+
+  private final double[] timestamps;
+  private final double[] yawDegrees;
+  private final double[] drivePositions;
+  private final double[] turnPositions;
+
+  // Only the producer writes writeCount and only the consumer writes readCount
+  private volatile long writeCount = 0;
+  private volatile long readCount = 0;
+  private volatile long droppedCount = 0;
+
+  /**
+   * @param capacity Number of samples held, a power of two so indexes can be masked.
+   * @param moduleCount Number of modules in each sample.
+   */
+  OdometryRing(int capacity, int moduleCount) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("Odometry ring capacity must be a power of two");
+    }
+    this.capacity = capacity;
+    mask = capacity - 1;
+    this.moduleCount = moduleCount;
+    timestamps = new double[capacity];
+    yawDegrees = new double[capacity];
+    drivePositions = new double[capacity * moduleCount];
+    turnPositions = new double[capacity * moduleCount];
+  }
+
+  /** Producer only. Whether the next sample would be dropped. */
+  boolean isFull() {
+    return writeCount - readCount >= capacity;
+  }
+
+  /**
+   * Adds a sample. Producer only.
+   * @param drive Drive positions in meters, one per module.
+   * @param turn Turn positions in degrees, one per module.
+   * @return False if the ring was full and the sample was dropped.
+   */
+  boolean write(double timestamp, double yaw, double[] drive, double[] turn) {
+    long write = writeCount;
+    if (write - readCount >= capacity) {
+      droppedCount++;
+      return false;
+    }
+    int slot = (int) (write & mask);
+    timestamps[slot] = timestamp;
+    yawDegrees[slot] = yaw;
+    System.arraycopy(drive, 0, drivePositions, slot * moduleCount, moduleCount);
+    System.arraycopy(turn, 0, turnPositions, slot * moduleCount, moduleCount);
+    // Volatile write publishes the slot to the consumer
+    writeCount = write + 1;
+    return true;
+  }
+
+  /** Producer only. Counts a sample thrown away without being written. */
+  void drop() {
+    droppedCount++;
+  }
+
+  /**
+   * Moves every pending sample into the caller's arrays, oldest first. Consumer only.
+   * @return The number of samples copied.
+   * @see OdometryThread#drain(double[], double[], double[], double[])
+   */
+  int drain(double[] timestampsOut, double[] yawOut, double[] driveOut, double[] turnOut) {
+    long read = readCount;
+    long write = writeCount;
+    int count = (int) (write - read);
+    for (int n = 0; n < count; n++) {
+      int slot = (int) ((read + n) & mask);
+      timestampsOut[n] = timestamps[slot];
+      yawOut[n] = yawDegrees[slot];
+      System.arraycopy(drivePositions, slot * moduleCount, driveOut, n * moduleCount, moduleCount);
+      System.arraycopy(turnPositions, slot * moduleCount, turnOut, n * moduleCount, moduleCount);
+    }
+    // Volatile write hands the slots back to the producer
+    readCount = write;
+    return count;
+  }
+
+  long getDroppedCount() {
+    return droppedCount;
+  }
+}
@@ -0,0 +1,87 @@
+package frc.robot.subsystems;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.Notifier;
+import frc.lib.util.RealTime;
+import frc.robot.Constants;
+
+/**
+ * Samples gyro yaw and module positions faster than the main loop. Samples go into a
+ * single-producer single-consumer ring buffer of primitives, so the notifier thread and the main
+ * loop never lock each other and nothing is allocated per sample.
+ */
+public class OdometryThread {
+  /** Ring capacity, a power of two so indexes can be masked. Holds well over one loop of samples. */
+  public static final int CAPACITY = 64;
+
+  private final GyroIO gyroIO;
+  private final ModuleIO[] moduleIOs;
+  private final Notifier notifier;
+  private final OdometryRing ring;
+
+  // Notifier thread only
+  private final double[] drivePositions;
+  private final double[] turnPositions;
+  private boolean promoted = false;
+
+  public OdometryThread(GyroIO gyroIO, ModuleIO[] moduleIOs) {
+    this.gyroIO = gyroIO;
+    this.moduleIOs = moduleIOs;
+    ring = new OdometryRing(CAPACITY, moduleIOs.length);
+    drivePositions = new double[moduleIOs.length];
+    turnPositions = new double[moduleIOs.length];
+    notifier = new Notifier(this::sample);
+    notifier.setName("OdometryThread");
+  }
+
+  /**
+   * Starts sampling.
+   * @param frequencyHz How often to sample, in hertz.
+   */
+  public void start(double frequencyHz) {
+    notifier.startPeriodic(1.0 / frequencyHz);
+  }
+
+  public void stop() {
+    notifier.stop();
+  }
+
+  /** Runs on the notifier thread. */
+  private void sample() {
+    if (!promoted) {
+      RealTime.promoteCurrentThread(Constants.SENSOR_THREAD_PRIORITY, "OdometryThread");
+      promoted = true;
+    }
+    if (ring.isFull()) {
+      // Main loop has fallen behind; keep the older samples so the estimator stays continuous
+      ring.drop();
+      return;
+    }
+
+    double timestamp = Logger.getInstance().getRealTimestamp() / 1.0e6;
+    double yaw = gyroIO.getOdometryYawDegrees();
+    for (int i = 0; i < moduleIOs.length; i++) {
+      drivePositions[i] = moduleIOs[i].getOdometryDrivePositionMeters();
+      turnPositions[i] = moduleIOs[i].getOdometryTurnPositionDegrees();
+    }
+    ring.write(timestamp, yaw, drivePositions, turnPositions);
+  }
+
+  /**
+   * Moves every pending sample into the caller's arrays, oldest first. Call from the main loop only.
+   * @param timestampsOut Receives the sample times in seconds, at least {@link #CAPACITY} long.
+   * @param yawOut Receives the raw gyro yaw in degrees.
+   * @param driveOut Receives drive positions in meters, moduleCount entries per sample.
+   * @param turnOut Receives turn positions in degrees, moduleCount entries per sample.
+   * @return The number of samples copied.
+   */
+  public int drain(double[] timestampsOut, double[] yawOut, double[] driveOut, double[] turnOut) {
+    return ring.drain(timestampsOut, yawOut, driveOut, turnOut);
+  }
+
+  /** Samples thrown away because the ring was full. */
+  public long getDroppedCount() {
+    return ring.getDroppedCount();
+  }
+}
@@ -1,33 +1,93 @@
 package frc.robot.subsystems;
 
+import frc.lib.util.DashboardPublisher;
+import frc.lib.util.LoopTimings;
+import frc.lib.util.PoseHistory;
+import frc.lib.util.StatusFrameScheduler;
+import frc.lib.util.SwerveMath;
+import frc.lib.util.SwerveSetpointGenerator;
 import frc.robot.Constants;
+import frc.robot.subsystems.GyroIO.GyroIOInputs;
 
-import java.text.DecimalFormat;
+import java.util.Arrays;
 
 import org.littletonrobotics.junction.Logger;
 
-import com.kauailabs.navx.frc.AHRS;
-
+import edu.wpi.first.math.Matrix;
+import edu.wpi.first.math.Nat;
 import edu.wpi.first.math.estimator.SwerveDrivePoseEstimator;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.geometry.Pose2d;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.geometry.Translation2d;
 import edu.wpi.first.math.kinematics.ChassisSpeeds;
-import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
+import edu.wpi.first.math.numbers.N1;
+import edu.wpi.first.math.numbers.N3;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import edu.wpi.first.wpilibj.smartdashboard.Field2d;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 
 
 public class SwerveDrivetrain extends SubsystemBase {
   private SwerveModules[] swerveModules;
 
-  private AHRS gyro = new AHRS();
-  private Float rates[] = new Float[3];
+  private final GyroIO gyroIO;
+  private final GyroIOInputs gyroInputs = new GyroIOInputs();
+  private double rates[] = new double[3];
+  private double rawYawDegrees = 0.0;
+  private double lastYawTimestampSecs = Double.NaN;
+  private boolean modulesConfigured = false;
   private SwerveDrivePoseEstimator poseEstimator;
+
+  // Preallocated buffers for the allocation-free drive path
+  private final double[] chassisSpeeds = new double[3];
+  private final double[] moduleSpeeds = new double[4];
+  private final double[] moduleAngles = new double[4];
+  private final double[] moduleSteerRates = new double[4];
+  private final SwerveSetpointGenerator setpointGenerator = new SwerveSetpointGenerator(
+      Constants.MODULE_LOCATIONS_X, Constants.MODULE_LOCATIONS_Y, Constants.DRIVETRAIN_MAX_SPEED,
+      Constants.MODULE_MAX_ACCELERATION, Constants.MODULE_MAX_STEER_RATE, Constants.LOOP_PERIOD_SECS);
+  // Separate state for commands that drive from their own notifier, which step by their own period
+  // on the FPGA clock; the main loop's generator steps on the logged cycle time
+  private final SwerveSetpointGenerator notifierSetpointGenerator = new SwerveSetpointGenerator(
+      Constants.MODULE_LOCATIONS_X, Constants.MODULE_LOCATIONS_Y, Constants.DRIVETRAIN_MAX_SPEED,
+      Constants.MODULE_MAX_ACCELERATION, Constants.MODULE_MAX_STEER_RATE, Constants.LOOP_PERIOD_SECS);
+  // Written by whichever thread drives, logged from periodic
+  private volatile double setpointFraction = 1.0;
+  private final SwerveModulePosition[] modulePositions = new SwerveModulePosition[] {
+    new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition(), new SwerveModulePosition()
+  };
   private Field2d field;
+  private final DashboardPublisher dashboard =
+      new DashboardPublisher("SmartDashboard", Constants.DASHBOARD_PERIOD_CYCLES);
+  private final DoublePublisher robotAnglePublisher = dashboard.addDouble("Robot Angle");
+  private final DoublePublisher poseXPublisher = dashboard.addDouble("Pose X");
+  private final DoublePublisher poseYPublisher = dashboard.addDouble("Pose Y");
+  private final DoublePublisher poseDegreesPublisher = dashboard.addDouble("Pose Degrees");
+  private final DoublePublisher angularSpeedPublisher = dashboard.addDouble("Angular Speed (pi rad per s)");
+  private final int periodicSpan = LoopTimings.register("Drivetrain/Periodic");
+
+  // High-rate odometry, only on a real robot. Its samples are logged as inputs so replay applies
+  // the same ones; sim updates at the loop rate.
+  private final OdometryThread odometryThread;
+  private final double[] odometryTimestamps = new double[OdometryThread.CAPACITY];
+  private final double[] odometryYaws = new double[OdometryThread.CAPACITY];
+  private final double[] odometryDrivePositions = new double[OdometryThread.CAPACITY * 4];
+  private final double[] odometryTurnPositions = new double[OdometryThread.CAPACITY * 4];
+  // Angles last turned into Rotation2d, so an unchanged angle reuses its object
+  private final double[] positionAngleDegrees = {Double.NaN, Double.NaN, Double.NaN, Double.NaN};
+  private double odometryHeadingDegrees = Double.NaN;
+  private Rotation2d odometryHeading = new Rotation2d();
+
+  private final Matrix<N3, N1> visionStdDevs = new Matrix<>(Nat.N3(), Nat.N1());
+
+  // Sized for the odometry thread's rate, which is the fastest the estimator is updated
+  private final PoseHistory poseHistory =
+      new PoseHistory((int) Math.ceil(Constants.ODOMETRY_FREQUENCY * Constants.POSE_HISTORY_SECS));
 
   /*
   private static SwerveDrivetrain drivetrain = new SwerveDrivetrain();
@@ -37,67 +97,184 @@ public class SwerveDrivetrain extends SubsystemBase {
   }
   */
 
-  public SwerveDrivetrain() {
+  public SwerveDrivetrain(GyroIO gyroIO, ModuleIO mod0IO, ModuleIO mod1IO, ModuleIO mod2IO, ModuleIO mod3IO) {
+    this(gyroIO, mod0IO, mod1IO, mod2IO, mod3IO, false);
+  }
+
+  /**
+   * A drivetrain that only exists to be driven by {@link frc.robot.JitWarmup} while disabled. Its
+   * IO is the shared no-op IO, and it's off the scheduler, starts no odometry thread and never
+   * publishes, so driving it can't reach a motor, the dashboard or the log.
+   */
+  public static SwerveDrivetrain createWarmup() {
+    return new SwerveDrivetrain(GyroIO.NONE, ModuleIO.NONE, ModuleIO.NONE, ModuleIO.NONE, ModuleIO.NONE, true);
+  }
+
+  private SwerveDrivetrain(GyroIO gyroIO, ModuleIO mod0IO, ModuleIO mod1IO, ModuleIO mod2IO,
+      ModuleIO mod3IO, boolean warmup) {
+    this.gyroIO = gyroIO;
+    gyroIO.updateInputs(gyroInputs);
+    rawYawDegrees = gyroInputs.yawDegrees;
 
     swerveModules = new SwerveModules[] {
-      new SwerveModules(0, Constants.Mod0.constants),
-      new SwerveModules(1, Constants.Mod1.constants),
-      new SwerveModules(2, Constants.Mod2.constants),
-      new SwerveModules(3, Constants.Mod3.constants)
+      new SwerveModules(0, Constants.Mod0.constants, mod0IO, warmup),
+      new SwerveModules(1, Constants.Mod1.constants, mod1IO, warmup),
+      new SwerveModules(2, Constants.Mod2.constants, mod2IO, warmup),
+      new SwerveModules(3, Constants.Mod3.constants, mod3IO, warmup)
   };
 
 
   poseEstimator = new SwerveDrivePoseEstimator(Constants.DRIVE_KIN, getYaw(), getPositions(),
         new Pose2d());
 
-    new Thread(() -> {
-      try{
-        Thread.sleep(1000);
-        zeroHeading();
-      }
-      catch(Exception e){}
-    }).start();
+    if (Constants.currentMode == Constants.Mode.REAL && !warmup) {
+      odometryThread = new OdometryThread(gyroIO, new ModuleIO[] {mod0IO, mod1IO, mod2IO, mod3IO});
+      odometryThread.start(Constants.ODOMETRY_FREQUENCY);
+      StatusFrameScheduler.setOdometryRate(Constants.ODOMETRY_FREQUENCY);
+    } else {
+      odometryThread = null;
+    }
 
+    // The gyro zeroes itself once its startup calibration finishes
     field = new Field2d();
-    SmartDashboard.putData(field);
+    if (warmup) {
+      CommandScheduler.getInstance().unregisterSubsystem(this);
+    } else {
+      SmartDashboard.putData(field);
+    }
   }
 
   public void swerveDrive(
       Translation2d translation, double rotation, boolean fieldRelative, boolean isOpenLoop){ //Drive with rotational speed control w/ joystick  
-    SwerveModuleState[] swerveModuleStates = Constants.DRIVE_KIN.toSwerveModuleStates(
-      fieldRelative
-          ? ChassisSpeeds.fromFieldRelativeSpeeds(
-              translation.getX(), translation.getY(), rotation, getYaw())
-          : new ChassisSpeeds(translation.getX(), translation.getY(), rotation));
-    SwerveDriveKinematics.desaturateWheelSpeeds(swerveModuleStates, Constants.DRIVETRAIN_MAX_SPEED);
+    swerveDrive(translation.getX(), translation.getY(), rotation, fieldRelative, isOpenLoop);
+  }
+
+  /**
+   * Allocation-free drive path. Inverse kinematics and desaturation run on preallocated
+   * buffers, and each module optimizes its own state on primitives. With
+   * {@link Constants#SETPOINT_GENERATOR} on, the request is first limited to what the modules can
+   * reach from the previous setpoint given their acceleration and steering limits. The speeds are
+   * discretized over the loop period, and field relative driving feeds each module's steering rate forward, when
+   * the second-order flags in {@link Constants} are on. Synchronized, along with the
+   * module reads in {@link #periodic()}, so commands that drive from their own notifier don't race
+   * the main loop. Call from the main loop; the setpoint steps by the time between logged cycles.
+   * @param xSpeed Forward speed in meters per second.
+   * @param ySpeed Left speed in meters per second.
+   * @param rotation Angular speed in radians per second.
+   * @param fieldRelative Whether the speeds are relative to the field.
+   * @param isOpenLoop Whether the modules drive with percent output.
+   */
+  public synchronized void swerveDrive(
+      double xSpeed, double ySpeed, double rotation, boolean fieldRelative, boolean isOpenLoop){
+    drive(xSpeed, ySpeed, rotation, fieldRelative, isOpenLoop, Constants.LOOP_PERIOD_SECS, false);
+  }
+
+  /**
+   * {@link #swerveDrive(double, double, double, boolean, boolean)} for commands that drive from
+   * their own fixed-rate notifier. The setpoint steps, and the speeds are discretized, by the
+   * notifier's period instead of the main loop's. The notifier has its own setpoint, timed on the
+   * FPGA clock, and switching between this and the main loop reseeds from the measured speeds.
+   * @param periodSecs How often the caller drives, in seconds.
+   */
+  public synchronized void swerveDrive(double xSpeed, double ySpeed, double rotation,
+      boolean fieldRelative, boolean isOpenLoop, double periodSecs){
+    drive(xSpeed, ySpeed, rotation, fieldRelative, isOpenLoop, periodSecs, true);
+  }
+
+  private void drive(double xSpeed, double ySpeed, double rotation, boolean fieldRelative,
+      boolean isOpenLoop, double periodSecs, boolean fixedStep) {
+    if (fieldRelative) {
+      SwerveMath.fromFieldRelative(xSpeed, ySpeed, rotation, getYawRadians(), chassisSpeeds);
+    } else {
+      chassisSpeeds[0] = xSpeed;
+      chassisSpeeds[1] = ySpeed;
+      chassisSpeeds[2] = rotation;
+    }
+    if (Constants.SETPOINT_GENERATOR) {
+      // The main loop steps on the logged cycle time, so replay sees the same steps. A notifier runs
+      // between cycles, so it reads the FPGA clock, which is only used to tell when it went stale.
+      SwerveSetpointGenerator generator = fixedStep ? notifierSetpointGenerator : setpointGenerator;
+      SwerveSetpointGenerator other = fixedStep ? setpointGenerator : notifierSetpointGenerator;
+      other.invalidate();
+      double now = fixedStep ? Timer.getFPGATimestamp() : Logger.getInstance().getTimestamp() / 1.0e6;
+      if (generator.needsReset(now)) {
+        ChassisSpeeds measured = Constants.DRIVE_KIN.toChassisSpeeds(getModuleStates());
+        generator.reset(measured.vxMetersPerSecond, measured.vyMetersPerSecond,
+            measured.omegaRadiansPerSecond, now);
+      }
+      setpointFraction = fixedStep
+          ? generator.generate(now, periodSecs, chassisSpeeds)
+          : generator.generate(now, chassisSpeeds);
+    }
+    if (Constants.DISCRETIZE_CHASSIS_SPEEDS) {
+      SwerveMath.discretize(chassisSpeeds[0], chassisSpeeds[1], chassisSpeeds[2],
+          periodSecs, chassisSpeeds);
+    }
+    SwerveMath.toModuleStates(chassisSpeeds[0], chassisSpeeds[1], chassisSpeeds[2],
+        Constants.MODULE_LOCATIONS_X, Constants.MODULE_LOCATIONS_Y, moduleSpeeds, moduleAngles);
+    double scale = SwerveMath.desaturate(moduleSpeeds, Constants.DRIVETRAIN_MAX_SPEED);
+
+    // Robot relative commands keep the modules still relative to the chassis; only field relative
+    // ones need them to steer as the robot turns
+    if (Constants.SECOND_ORDER_KINEMATICS && fieldRelative) {
+      SwerveMath.toModuleSteerRates(chassisSpeeds[0] * scale, chassisSpeeds[1] * scale,
+          chassisSpeeds[2] * scale, Constants.MODULE_LOCATIONS_X, Constants.MODULE_LOCATIONS_Y,
+          moduleSteerRates);
+    } else {
+      Arrays.fill(moduleSteerRates, 0.0);
+    }
 
     for (SwerveModules mod : swerveModules) {
-      mod.setDesiredState(swerveModuleStates[mod.moduleNumber], isOpenLoop);
+      int i = mod.moduleNumber;
+      mod.setDesiredState(moduleSpeeds[i], moduleAngles[i], moduleSteerRates[i], isOpenLoop);
     }
   }
 
-  public void formX(){
-    swerveModules[0].setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)), false);
-    swerveModules[1].setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)), false);
-    swerveModules[2].setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(-45)), false);
-    swerveModules[3].setDesiredState(new SwerveModuleState(0, Rotation2d.fromDegrees(45)), false);
+  public synchronized void formX(){
+    setpointGenerator.invalidate();
+    notifierSetpointGenerator.invalidate();
+    swerveModules[0].setDesiredState(0, 45, false);
+    swerveModules[1].setDesiredState(0, -45, false);
+    swerveModules[2].setDesiredState(0, -45, false);
+    swerveModules[3].setDesiredState(0, 45, false);
+  }
+
+  /**
+   * Measured module states in the AdvantageKit swerve layout, {angle radians, speed} per module.
+   * A new array each call since the log receivers hold on to it after this cycle.
+   */
+  private double[] getMeasuredStatesForLog() {
+    double[] states = new double[swerveModules.length * 2];
+    for (SwerveModules mod : swerveModules) {
+      states[mod.moduleNumber * 2] = Math.toRadians(mod.getAngleDegrees());
+      states[mod.moduleNumber * 2 + 1] = mod.getVelocityMetersPerSec();
+    }
+    return states;
   }
 
   public Field2d getField() {
     return field;
   }
 
-  public void setModuleStates(SwerveModuleState[] moduleStates){
-    SwerveDriveKinematics.desaturateWheelSpeeds(moduleStates, Constants.DRIVETRAIN_MAX_SPEED);
+  public synchronized void setModuleStates(SwerveModuleState[] moduleStates){
+    setpointGenerator.invalidate();
+    notifierSetpointGenerator.invalidate();
+    for (SwerveModules mod : swerveModules) {
+      moduleSpeeds[mod.moduleNumber] = moduleStates[mod.moduleNumber].speedMetersPerSecond;
+      moduleAngles[mod.moduleNumber] = moduleStates[mod.moduleNumber].angle.getDegrees();
+    }
+    SwerveMath.desaturate(moduleSpeeds, Constants.DRIVETRAIN_MAX_SPEED);
 
     for (SwerveModules mod : swerveModules) {
-      mod.setDesiredState(moduleStates[mod.moduleNumber], false);
+      mod.setDesiredState(moduleSpeeds[mod.moduleNumber], moduleAngles[mod.moduleNumber], false);
     }
   }
 
-  public void setModuleRotation(Rotation2d rotation) {
+  public synchronized void setModuleRotation(Rotation2d rotation) {
+    setpointGenerator.invalidate();
+    notifierSetpointGenerator.invalidate();
     for (SwerveModules mod : swerveModules) {
-      mod.setDesiredState(new SwerveModuleState(0, rotation), false);
+      mod.setDesiredState(0, rotation.getDegrees(), false);
     }
   }
 
@@ -107,6 +284,18 @@ public class SwerveDrivetrain extends SubsystemBase {
 
   public void resetOdometry(Pose2d pose){
     poseEstimator.resetPosition(getYaw(), getPositions(), pose);
+    poseHistory.clear();
+  }
+
+  /**
+   * Looks up the estimated pose at a past time, interpolated from the pose history. Covers the
+   * last {@link Constants#POSE_HISTORY_SECS} seconds and doesn't allocate.
+   * @param timestampSecs Time to look up, on the same clock as the odometry timestamps.
+   * @param out Receives {x meters, y meters, heading radians}.
+   * @return False if the time is older than the history.
+   */
+  public boolean samplePose(double timestampSecs, double[] out) {
+    return poseHistory.sample(timestampSecs, out);
   }
 
   public SwerveModuleState[] getModuleStates(){
@@ -125,44 +314,246 @@ public class SwerveDrivetrain extends SubsystemBase {
     return positions;
   }
 
+  /**
+   * Reads tilt straight from the gyro, bypassing this cycle's snapshot, for control loops that run
+   * faster than the main loop.
+   * @param out Receives {pitch, roll, pitch rate, roll rate} in degrees and degrees per second.
+   */
+  public void readTilt(double[] out) {
+    gyroIO.readTilt(out);
+  }
+
   public void zeroHeading(){
-    gyro.zeroYaw();
+    gyroIO.zeroYaw();
+    rawYawDegrees = 0.0;
+  }
+
+  public void calibrateGyro(){
+    gyroIO.calibrate();
   }
 
   public Rotation2d getYaw() {
+    return Rotation2d.fromDegrees(getYawDegrees());
+  }
+
+  public double getYawDegrees() {
+    return toHeadingDegrees(rawYawDegrees);
+  }
+
+  /**
+   * Uses the gyro when there is one. In sim, or if the NavX drops out, the heading is integrated
+   * from the module states instead so the pose estimator keeps working.
+   */
+  private void updateRawYaw() {
+    // The logged cycle time, so replay integrates the same steps
+    double now = Logger.getInstance().getTimestamp() / 1.0e6;
+    double dt = Double.isNaN(lastYawTimestampSecs) ? Constants.LOOP_PERIOD_SECS : now - lastYawTimestampSecs;
+    lastYawTimestampSecs = now;
+    if (gyroInputs.connected) {
+      rawYawDegrees = gyroInputs.yawDegrees;
+    } else {
+      double omegaDegrees = Math.toDegrees(
+          Constants.DRIVE_KIN.toChassisSpeeds(getModuleStates()).omegaRadiansPerSecond);
+      rawYawDegrees += (Constants.invertGyro ? -omegaDegrees : omegaDegrees) * dt;
+    }
+  }
+
+  private static double toHeadingDegrees(double rawYawDegrees) {
     return (Constants.invertGyro)
-        ? Rotation2d.fromDegrees(360 - (gyro.getYaw()% 360))
-        : Rotation2d.fromDegrees(gyro.getYaw()% 360);
+        ? 360 - (rawYawDegrees% 360)
+        : rawYawDegrees% 360;
+  }
+
+  public double getYawRadians() {
+    return Math.toRadians(getYawDegrees());
   }
 
   @Override
   public void periodic() {
+    LoopTimings.start(periodicSpan);
     // This method will be called once per scheduler run
     //poseEstimator.update(getHeadingRotation2d(), getPositions());
 
-    Rotation2d yawValue = getYaw();
-    double rawYawValue = gyro.getAngle();
-
-    poseEstimator.update(yawValue, getPositions());
+    // Read every sensor once; everything below and every command this cycle uses the snapshot
+    gyroIO.updateInputs(gyroInputs);
+    drainOdometrySamples();
+    Logger.getInstance().processInputs("Drivetrain/Gyro", gyroInputs);
+    // Modules time their own reads, keep them out of this span
+    LoopTimings.stop(periodicSpan);
+    synchronized (this) {
+      for (SwerveModules mod : swerveModules) {
+        mod.updateInputs();
+      }
+    }
+    LoopTimings.start(periodicSpan);
+    updateRawYaw();
+    boolean justConfigured = false;
+    if (!modulesConfigured && areModulesConfigured()) {
+      // Encoder scaling and zeroes changed under the estimator while configuring; start it fresh
+      // and skip this cycle's samples, which may predate the change
+      modulesConfigured = true;
+      justConfigured = true;
+      updateModulePositions();
+      poseEstimator.resetPosition(getYaw(), modulePositions, getPose());
+    }
 
-    rates[0] = gyro.getRawGyroX();
-    rates[1] = gyro.getRawGyroY();
-    rates[2] = gyro.getRawGyroZ();
+    Rotation2d yawValue = getYaw();
+    double rawYawValue = gyroInputs.angleDegrees;
 
-    field.setRobotPose(getPose());
-  
-    SmartDashboard.putNumber("Robot Angle", rawYawValue);
-    SmartDashboard.putString("Pose", getPose().toString());
-    SmartDashboard.putString("Angular Speed", new DecimalFormat("#.00").format((rates[2] / 180)) + "pi rad/s");
+    if (modulesConfigured && !justConfigured) {
+      updateOdometry(yawValue);
+    }
+    Pose2d pose = getPose();
+
+    rates[0] = gyroInputs.rateXDegreesPerSec;
+    rates[1] = gyroInputs.rateYDegreesPerSec;
+    rates[2] = gyroInputs.rateZDegreesPerSec;
+
+    if (dashboard.shouldPublish()) {
+      field.setRobotPose(pose);
+      robotAnglePublisher.set(rawYawValue);
+      poseXPublisher.set(pose.getX());
+      poseYPublisher.set(pose.getY());
+      poseDegreesPublisher.set(pose.getRotation().getDegrees());
+      angularSpeedPublisher.set(rates[2] / 180);
+    }
 
     //Pose2d poseA = getPose();
-    Logger.getInstance().recordOutput("Drivetrain/Robot Angle", getYaw().getRadians());
-    Logger.getInstance().recordOutput("Drivetrain/Pose", getPose());
+    Logger.getInstance().recordOutput("Drivetrain/Robot Angle", yawValue.getRadians());
+    Logger.getInstance().recordOutput("Drivetrain/Pose", pose);
     Logger.getInstance().recordOutput("Drivetrain/Angular Speed", rates[2] / 180);
-    Logger.getInstance().recordOutput("Drivetrain/Module States", getModuleStates());
+    Logger.getInstance().recordOutput("Drivetrain/Module States", getMeasuredStatesForLog());
+    Logger.getInstance().recordOutput("Drivetrain/Setpoint Fraction", setpointFraction);
+    LoopTimings.stop(periodicSpan);
+  }
+
+  /**
+   * Moves the odometry thread's queued samples into this cycle's gyro and module inputs, so they're
+   * logged and replay sees the same samples. New arrays each cycle since the log receivers hold on
+   * to them. Without the thread the inputs are left as they are: empty in sim, read from the log in
+   * replay.
+   */
+  private void drainOdometrySamples() {
+    if (odometryThread == null) {
+      return;
+    }
+    int samples = odometryThread.drain(
+        odometryTimestamps, odometryYaws, odometryDrivePositions, odometryTurnPositions);
+    gyroInputs.odometryTimestamps = Arrays.copyOf(odometryTimestamps, samples);
+    gyroInputs.odometryYawDegrees = Arrays.copyOf(odometryYaws, samples);
+    for (SwerveModules mod : swerveModules) {
+      double[] drive = new double[samples];
+      double[] turn = new double[samples];
+      for (int n = 0; n < samples; n++) {
+        drive[n] = odometryDrivePositions[n * 4 + mod.moduleNumber];
+        turn[n] = odometryTurnPositions[n * 4 + mod.moduleNumber];
+      }
+      mod.setOdometrySamples(drive, turn);
+    }
+    Logger.getInstance().recordOutput("Drivetrain/Odometry Dropped", odometryThread.getDroppedCount());
+  }
+
+  /**
+   * Feeds the pose estimator. Every high-rate sample in this cycle's inputs is applied at its own
+   * timestamp; a cycle without any, which is every cycle in sim, applies the snapshot once.
+   */
+  private void updateOdometry(Rotation2d yawValue) {
+    double[] timestamps = gyroInputs.odometryTimestamps;
+    int samples = timestamps.length;
+    Logger.getInstance().recordOutput("Drivetrain/Odometry Samples", samples);
+    if (samples == 0) {
+      // Stamped with the logged cycle time so replayed vision timestamps line up
+      updateModulePositions();
+      double timestamp = Logger.getInstance().getTimestamp() / 1.0e6;
+      recordPose(timestamp, poseEstimator.updateWithTime(timestamp, yawValue, modulePositions));
+      return;
+    }
+
+    double[] yaws = gyroInputs.odometryYawDegrees;
+    for (int n = 0; n < samples; n++) {
+      for (SwerveModules mod : swerveModules) {
+        int i = mod.moduleNumber;
+        modulePositions[i].distanceMeters = mod.getOdometryDrivePositionsMeters()[n];
+        setPositionAngle(i, mod.getOdometryTurnPositionsDegrees()[n]);
+      }
+      double heading = toHeadingDegrees(yaws[n]);
+      if (heading != odometryHeadingDegrees) {
+        odometryHeadingDegrees = heading;
+        odometryHeading = Rotation2d.fromDegrees(heading);
+      }
+      recordPose(timestamps[n], poseEstimator.updateWithTime(timestamps[n], odometryHeading, modulePositions));
+    }
+  }
+
+  /**
+   * Fuses a vision pose observation into the pose estimator at its capture time, so the
+   * correction is applied against where the robot was when the frame was taken. Observations that
+   * are too old, too far from the tags, ambiguous, or off the field are rejected. Trust falls off
+   * with the square of the tag distance and rises with the tag count, never above the base std devs
+   * in {@link Constants}, and single-tag headings are ignored in favour of the gyro.
+   * @param timestampSecs Capture time on the FPGA clock, in seconds.
+   * @param xMeters Field x of the observed robot pose.
+   * @param yMeters Field y of the observed robot pose.
+   * @param rotationRadians Heading of the observed robot pose.
+   * @param ambiguity Pose ambiguity reported by the camera, 0 to 1.
+   * @param distanceMeters Average distance to the tags used.
+   * @param tagCount Number of tags used.
+   * @return Whether the observation was fused.
+   */
+  public boolean addVisionObservation(double timestampSecs, double xMeters, double yMeters,
+      double rotationRadians, double ambiguity, double distanceMeters, int tagCount) {
+    double age = Logger.getInstance().getTimestamp() / 1.0e6 - timestampSecs;
+    if (!modulesConfigured
+        || tagCount < 1
+        || (tagCount == 1 && ambiguity > Constants.VISION_MAX_AMBIGUITY)
+        || distanceMeters > Constants.VISION_MAX_DISTANCE
+        || age > Constants.VISION_MAX_AGE
+        || age < -Constants.LOOP_PERIOD_SECS
+        || xMeters < 0.0 || xMeters > Constants.FIELD_LENGTH
+        || yMeters < 0.0 || yMeters > Constants.FIELD_WIDTH) {
+      return false;
+    }
+
+    // Floored so close or many-tag observations can't outweigh odometry without limit
+    double scale = Math.max(1.0, distanceMeters * distanceMeters / tagCount);
+    visionStdDevs.set(0, 0, Constants.VISION_XY_STD_DEV * scale);
+    visionStdDevs.set(1, 0, Constants.VISION_XY_STD_DEV * scale);
+    visionStdDevs.set(2, 0, tagCount > 1 ? Constants.VISION_THETA_STD_DEV * scale : 1.0e6);
+    poseEstimator.addVisionMeasurement(
+        new Pose2d(xMeters, yMeters, new Rotation2d(rotationRadians)), timestampSecs, visionStdDevs);
+    return true;
+  }
+
+  private void recordPose(double timestamp, Pose2d pose) {
+    poseHistory.add(timestamp, pose.getX(), pose.getY(), pose.getRotation().getRadians());
+  }
+
+  private boolean areModulesConfigured() {
+    for (SwerveModules mod : swerveModules) {
+      if (!mod.isConfigured()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Copies this cycle's module snapshot into the reused position array. */
+  private void updateModulePositions() {
+    for (SwerveModules mod : swerveModules) {
+      modulePositions[mod.moduleNumber].distanceMeters = mod.getDrivePositionMeters();
+      setPositionAngle(mod.moduleNumber, mod.getAngleDegrees());
+    }
+  }
+
+  /** Sets a reused position's angle, only making a new Rotation2d when the angle changed. */
+  private void setPositionAngle(int module, double degrees) {
+    if (degrees != positionAngleDegrees[module]) {
+      positionAngleDegrees[module] = degrees;
+      modulePositions[module].angle = Rotation2d.fromDegrees(degrees);
+    }
   }
 
-  public void resetToAbsolute() {
+  public synchronized void resetToAbsolute() {
     for (SwerveModules mod : swerveModules) {
       mod.resetToAbsolute();
     }
@@ -5,167 +5,228 @@
 package frc.robot.subsystems;
 import org.littletonrobotics.junction.Logger;
 
-import com.ctre.phoenix.sensors.CANCoder;
-import com.revrobotics.CANSparkMax;
-import com.revrobotics.RelativeEncoder;
-import com.revrobotics.SparkMaxPIDController;
-import com.revrobotics.CANSparkMax.ControlType;
-import com.revrobotics.CANSparkMax.IdleMode;
-import com.revrobotics.CANSparkMaxLowLevel.MotorType;
-
 import edu.wpi.first.math.controller.SimpleMotorFeedforward;
 import edu.wpi.first.math.geometry.Rotation2d;
 import edu.wpi.first.math.kinematics.SwerveModulePosition;
 import edu.wpi.first.math.kinematics.SwerveModuleState;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import edu.wpi.first.networktables.DoublePublisher;
+import edu.wpi.first.wpilibj2.command.CommandScheduler;
 import edu.wpi.first.wpilibj2.command.SubsystemBase;
 import frc.lib.SwerveModuleConstants;
-import frc.lib.util.CANCoderUtil;
-import frc.lib.util.CANSparkMaxUtil;
-import frc.lib.util.CANCoderUtil.CCUsage;
-import frc.lib.util.CANSparkMaxUtil.Usage;
+import frc.lib.util.DashboardPublisher;
+import frc.lib.util.LoopTimings;
+import frc.lib.util.SwerveMath;
 import frc.robot.Constants;
-import frc.robot.Robot;
+import frc.robot.subsystems.ModuleIO.ModuleIOInputs;
 
 public class SwerveModules extends SubsystemBase {
   public int moduleNumber;
 
-  private CANSparkMax driveMotor;
-  private CANSparkMax turnMotor;
-
-  private RelativeEncoder driveEncoder;
-  private RelativeEncoder turnEncoder;
-
-  private SparkMaxPIDController turnPIDController;
-  private final SparkMaxPIDController driveController;
-  private CANCoder absoluteEncoder;
-
-  private Rotation2d lastAngle;
+  private final ModuleIO io;
+  private final ModuleIOInputs inputs = new ModuleIOInputs();
+  private final String inputsKey;
+  private final int driveMotorID;
+  private final int updateInputsSpan;
+  private final int periodicSpan;
+
+  // Telemetry keys and publishers are built once here, not every loop
+  private final String speedSetpointKey;
+  private final String angleSetpointKey;
+  private final DashboardPublisher dashboard =
+      new DashboardPublisher("SmartDashboard", Constants.DASHBOARD_PERIOD_CYCLES);
+  private final DoublePublisher speedPublisher;
+  private final DoublePublisher anglePublisher;
+  private double lastSpeedSetpoint = 0.0;
+  private boolean wasConfigured = false;
+
+  private double lastAngleDegrees;
   private Rotation2d angleOffset;
 
   private final SimpleMotorFeedforward feedforward = new SimpleMotorFeedforward(
       Constants.driveKS, Constants.driveKV, Constants.driveKA);
 
   /** Creates a new SwerveModule. */
-  public SwerveModules(int moduleNumber, SwerveModuleConstants moduleConstants) {  //int turnMotorId, boolean driveMotorReversed, boolean turnMotorReversed, int absoluteEncoderId, double absoluteEncoderOffset, boolean absoluteEncoderReversed
+  public SwerveModules(int moduleNumber, SwerveModuleConstants moduleConstants, ModuleIO io) {
+    this(moduleNumber, moduleConstants, io, false);
+  }
+
+  /**
+   * @param warmup Whether the module only exists for JIT warm-up. A warm-up module is taken off
+   *     the scheduler, never reads or logs inputs, and acts configured so every setpoint reaches
+   *     its IO.
+   */
+  SwerveModules(int moduleNumber, SwerveModuleConstants moduleConstants, ModuleIO io, boolean warmup) {
       this.moduleNumber = moduleNumber;
+      this.io = io;
       angleOffset = moduleConstants.angleOffset;
+      driveMotorID = moduleConstants.driveMotorID;
+      inputsKey = "Drivetrain/Module" + moduleNumber;
+      updateInputsSpan = LoopTimings.register(inputsKey + "/UpdateInputs");
+      periodicSpan = LoopTimings.register(inputsKey + "/Periodic");
+      speedSetpointKey = inputsKey + "/SpeedSetpoint";
+      angleSetpointKey = inputsKey + "/AngleSetpoint";
+      speedPublisher = dashboard.addDouble("Swerve [" + driveMotorID + "] Speed");
+      anglePublisher = dashboard.addDouble("Swerve [" + driveMotorID + "] Angle");
+
+      if (warmup) {
+        CommandScheduler.getInstance().unregisterSubsystem(this);
+        inputs.configured = true;
+      } else {
+        updateInputs();
+      }
+  }
 
-      absoluteEncoder = new CANCoder(moduleConstants.cancoderID);
-      configAngleEncoder();
-
-      driveMotor = new CANSparkMax(moduleConstants.driveMotorID, MotorType.kBrushless);
-      driveEncoder = driveMotor.getEncoder();
-      driveController = driveMotor.getPIDController();
-      driveMotor.setInverted(moduleConstants.driveMotorInverted);
-      configDriveMotor();
+  /**
+   * Reads the module's sensors once for this cycle. Everything else on the module works off
+   * this snapshot, so call it at the top of the loop before anything asks for a state.
+   */
+  public void updateInputs() {
+    LoopTimings.start(updateInputsSpan);
+    io.updateInputs(inputs);
+    Logger.getInstance().processInputs(inputsKey, inputs);
+    if (inputs.configured && !wasConfigured) {
+      // Configuration runs in the background; seed the turn encoder once it's done
+      resetToAbsolute();
+      lastAngleDegrees = inputs.turnPositionDegrees;
+    }
+    wasConfigured = inputs.configured;
+    LoopTimings.stop(updateInputsSpan);
+  }
 
-      //driveMotor.setInverted(true);
+  public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop){
+    setDesiredState(desiredState.speedMetersPerSecond, desiredState.angle.getDegrees(), isOpenLoop);
+  }
 
-      turnMotor = new CANSparkMax(moduleConstants.angleMotorID, MotorType.kBrushless);
-      turnEncoder = turnMotor.getEncoder();
-      turnPIDController = turnMotor.getPIDController();
-      turnMotor.setInverted(moduleConstants.angleMotorInverted);
-      configTurnMotor();
+  /**
+   * Allocation-free version of {@link #setDesiredState(SwerveModuleState, boolean)}.
+   * @param speedMetersPerSecond The desired drive speed.
+   * @param angleDegrees The desired module angle.
+   * @param isOpenLoop Whether to drive with percent output instead of velocity control.
+   */
+  public void setDesiredState(double speedMetersPerSecond, double angleDegrees, boolean isOpenLoop){
+    setDesiredState(speedMetersPerSecond, angleDegrees, 0.0, isOpenLoop);
+  }
 
-      lastAngle = getState().angle;
+  /**
+   * Allocation-free desired state with a steering rate from second-order kinematics, fed forward
+   * to the turn motor.
+   * @param speedMetersPerSecond The desired drive speed.
+   * @param angleDegrees The desired module angle.
+   * @param steerRateRadPerSec How fast the module angle is changing, in radians per second.
+   * @param isOpenLoop Whether to drive with percent output instead of velocity control.
+   */
+  public void setDesiredState(
+      double speedMetersPerSecond, double angleDegrees, double steerRateRadPerSec, boolean isOpenLoop){
+    if (!inputs.configured) {
+      // Stay idle until the motor controllers finish configuring
+      return;
+    }
+    /* Same as SwerveModuleState.optimize, done on primitives so nothing is allocated */
+    if (SwerveMath.shouldReverse(angleDegrees, inputs.turnPositionDegrees)) {
+      speedMetersPerSecond = -speedMetersPerSecond;
+      angleDegrees = SwerveMath.reverse(angleDegrees);
+    }
+    setAngle(speedMetersPerSecond, angleDegrees, steerRateRadPerSec);
+    setSpeed(speedMetersPerSecond, isOpenLoop);
+    lastSpeedSetpoint = speedMetersPerSecond;
   }
 
-  public void setDesiredState(SwerveModuleState desiredState, boolean isOpenLoop){
-    /* This is a custom optimize function, since default WPILib optimize assumes continuous controller which CTRE and Rev onboard is not */
-    desiredState = SwerveModuleState.optimize(desiredState, getState().angle); 
-    //desiredState = new SwerveModuleState(desiredState.speedMetersPerSecond, getState().angle);
-    setAngle(desiredState);
-    setSpeed(desiredState, isOpenLoop);
+  @Override
+  public void periodic() {
+    LoopTimings.start(periodicSpan);
+    // Setpoints are from the last command cycle, measured values are already logged as inputs
+    Logger.getInstance().recordOutput(speedSetpointKey, lastSpeedSetpoint);
+    Logger.getInstance().recordOutput(angleSetpointKey, lastAngleDegrees);
 
-    SmartDashboard.putString("Swerve [" + driveMotor.getDeviceId() + "] State", getState().toString());
-    Logger.getInstance().recordOutput("Drivetrain/Module " + driveMotor.getDeviceId() + " State", getState());
+    if (dashboard.shouldPublish()) {
+      speedPublisher.set(inputs.driveVelocityMetersPerSec);
+      anglePublisher.set(inputs.turnPositionDegrees);
+    }
+    LoopTimings.stop(periodicSpan);
   }
 
   public void setSpeed(SwerveModuleState desiredState, boolean isOpenLoop){
+    setSpeed(desiredState.speedMetersPerSecond, isOpenLoop);
+  }
+
+  private void setSpeed(double speedMetersPerSecond, boolean isOpenLoop){
     if (isOpenLoop) {
-      double percentOutput = desiredState.speedMetersPerSecond / Constants.DRIVETRAIN_MAX_SPEED; //Max drivetrain speed
-      driveMotor.set(percentOutput);
+      double percentOutput = speedMetersPerSecond / Constants.DRIVETRAIN_MAX_SPEED; //Max drivetrain speed
+      io.setDrivePercent(percentOutput);
     } else {
-      driveController.setReference(
-          desiredState.speedMetersPerSecond,
-          ControlType.kVelocity,
-          0,
-          feedforward.calculate(desiredState.speedMetersPerSecond));
+      io.setDriveVelocity(speedMetersPerSecond, feedforward.calculate(speedMetersPerSecond));
     }
   }
 
-  private void setAngle(SwerveModuleState desiredState) {
+  private void setAngle(double speedMetersPerSecond, double angleDegrees, double steerRateRadPerSec) {
     // Prevent rotating module if speed is less then 1%. Prevents jittering.
-    Rotation2d angle = (Math.abs(desiredState.speedMetersPerSecond) <= (Constants.DRIVETRAIN_MAX_SPEED * 0.01))
-        ? lastAngle
-        : desiredState.angle;
+    boolean hold = Math.abs(speedMetersPerSecond) <= (Constants.DRIVETRAIN_MAX_SPEED * 0.01);
+    double angle = hold ? lastAngleDegrees : angleDegrees;
 
-    turnPIDController.setReference(angle.getDegrees(), ControlType.kPosition);
-    lastAngle = angle;
+    io.setTurnPosition(angle, hold ? 0.0 : Constants.TURN_KV * steerRateRadPerSec);
+    lastAngleDegrees = angle;
   }
 
   public void resetToAbsolute() {
-    double absolutePosition = getCanCoder().getDegrees() - angleOffset.getDegrees();
-    turnEncoder.setPosition(absolutePosition);
+    double absolutePosition = inputs.absolutePositionDegrees - angleOffset.getDegrees();
+    io.resetTurnPosition(absolutePosition);
+    inputs.turnPositionDegrees = absolutePosition;
   }
 
   public SwerveModulePosition getPosition(){
-    return new SwerveModulePosition(driveEncoder.getPosition(), getAngle());
-  }
-
-  private void configAngleEncoder() {
-    absoluteEncoder.configFactoryDefault();
-    CANCoderUtil.setCANCoderBusUsage(absoluteEncoder, CCUsage.kMinimal);
-    absoluteEncoder.configAllSettings(Robot.ctreConfigs.swerveCanCoderConfig);
-  }
-
-  private void configTurnMotor() {
-    turnMotor.restoreFactoryDefaults();
-    CANSparkMaxUtil.setCANSparkMaxBusUsage(turnMotor, Usage.kPositionOnly);
-    turnMotor.setSmartCurrentLimit(30);
-    //turnMotor.setInverted(true);
-    turnMotor.setIdleMode(IdleMode.kCoast);
-    turnEncoder.setPositionConversionFactor(Constants.TURN_MOTOR_PCONVERSION);
-    turnPIDController.setPositionPIDWrappingEnabled(true);
-    turnPIDController.setPositionPIDWrappingMinInput(-180.0);
-    turnPIDController.setPositionPIDWrappingMaxInput(180.0);
-    turnPIDController.setP(Constants.ROTATE_KP);
-    turnPIDController.setI(Constants.ROTATE_KI);
-    turnPIDController.setD(Constants.ROTATE_KD);
-    turnPIDController.setFF(0.0);
-    turnMotor.enableVoltageCompensation(12);
-    turnMotor.burnFlash();
-    resetToAbsolute();
-  }
-
-  private void configDriveMotor() {
-    driveMotor.restoreFactoryDefaults();
-    CANSparkMaxUtil.setCANSparkMaxBusUsage(driveMotor, Usage.kVelocityOnly);
-    driveMotor.setSmartCurrentLimit(40);
-    //driveMotor.setInverted(false);
-    driveMotor.setIdleMode(IdleMode.kBrake);
-    driveEncoder.setVelocityConversionFactor(Constants.DRIVE_MOTOR_VCONVERSION);
-    driveEncoder.setPositionConversionFactor(Constants.DRIVE_MOTOR_PCONVERSION);
-    driveController.setP(Constants.ROTATE_KP);
-    driveController.setI(Constants.ROTATE_KI);
-    driveController.setD(Constants.ROTATE_KD);
-    driveController.setFF(0.0);
-    driveMotor.enableVoltageCompensation(12);
-    driveMotor.burnFlash();
-    driveEncoder.setPosition(0.0);
+    return new SwerveModulePosition(inputs.drivePositionMeters, getAngle());
+  }
+
+  /** Drive distance from this cycle's snapshot, in meters. */
+  public double getDrivePositionMeters() {
+    return inputs.drivePositionMeters;
+  }
+
+  /** Drive velocity from this cycle's snapshot, in meters per second. */
+  public double getVelocityMetersPerSec() {
+    return inputs.driveVelocityMetersPerSec;
+  }
+
+  /** Module angle from this cycle's snapshot, in degrees. */
+  public double getAngleDegrees() {
+    return inputs.turnPositionDegrees;
+  }
+
+  /**
+   * Hands the module this cycle's high-rate odometry samples, so they're logged with its inputs.
+   * Call before {@link #updateInputs()}.
+   * @param drivePositionsMeters Drive positions, one per sample.
+   * @param turnPositionsDegrees Turn positions, one per sample.
+   */
+  void setOdometrySamples(double[] drivePositionsMeters, double[] turnPositionsDegrees) {
+    inputs.odometryDrivePositionsMeters = drivePositionsMeters;
+    inputs.odometryTurnPositionsDegrees = turnPositionsDegrees;
+  }
+
+  /** High-rate drive positions from this cycle's snapshot, in meters. */
+  double[] getOdometryDrivePositionsMeters() {
+    return inputs.odometryDrivePositionsMeters;
+  }
+
+  /** High-rate turn positions from this cycle's snapshot, in degrees. */
+  double[] getOdometryTurnPositionsDegrees() {
+    return inputs.odometryTurnPositionsDegrees;
+  }
+
+  /** Whether the module's hardware has finished configuring. */
+  public boolean isConfigured() {
+    return inputs.configured;
   }
 
   public Rotation2d getCanCoder() {
-    return Rotation2d.fromDegrees(absoluteEncoder.getAbsolutePosition());
+    return Rotation2d.fromDegrees(inputs.absolutePositionDegrees);
   }
 
   private Rotation2d getAngle() {
-    return Rotation2d.fromDegrees(turnEncoder.getPosition());
+    return Rotation2d.fromDegrees(inputs.turnPositionDegrees);
   }
 
   public SwerveModuleState getState(){
-    double velocity = driveEncoder.getVelocity();
-    return new SwerveModuleState(velocity, getAngle());  
+    return new SwerveModuleState(inputs.driveVelocityMetersPerSec, getAngle());
   }
-}
\ No newline at end of file
+}
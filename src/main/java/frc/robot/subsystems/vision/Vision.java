@@ -0,0 +1,84 @@
+package frc.robot.subsystems.vision;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj2.command.SubsystemBase;
+import frc.lib.util.LoopTimings;
+import frc.robot.subsystems.SwerveDrivetrain;
+import frc.robot.subsystems.vision.VisionIO.VisionIOInputs;
+
+/**
+ * Collects pose observations from every camera and fuses them into the drivetrain's pose estimator
+ * in capture order. Construct after the drivetrain so this runs after its odometry update.
+ */
+public class Vision extends SubsystemBase {
+  // Each fused observation replays the odometry since its capture time, so cap the work per loop
+  private static final int MAX_FUSED_PER_CYCLE = 8;
+
+  private final SwerveDrivetrain drivetrain;
+  private final VisionIO[] ios;
+  private final VisionIOInputs[] inputs;
+  private final String[] inputsKeys;
+  private final int periodicSpan = LoopTimings.register("Vision/Periodic");
+
+  // Observations from every camera this cycle, referenced by camera and index and sorted by time
+  private final int[] orderCamera;
+  private final int[] orderIndex;
+
+  public Vision(SwerveDrivetrain drivetrain, VisionIO... ios) {
+    this.drivetrain = drivetrain;
+    this.ios = ios;
+    inputs = new VisionIOInputs[ios.length];
+    inputsKeys = new String[ios.length];
+    for (int i = 0; i < ios.length; i++) {
+      inputs[i] = new VisionIOInputs();
+      inputsKeys[i] = "Vision/Camera" + i;
+    }
+    orderCamera = new int[ios.length * VisionIOInputs.MAX_OBSERVATIONS];
+    orderIndex = new int[ios.length * VisionIOInputs.MAX_OBSERVATIONS];
+  }
+
+  @Override
+  public void periodic() {
+    LoopTimings.start(periodicSpan);
+    int total = 0;
+    for (int i = 0; i < ios.length; i++) {
+      ios[i].updateInputs(inputs[i]);
+      Logger.getInstance().processInputs(inputsKeys[i], inputs[i]);
+      for (int n = 0; n < inputs[i].count; n++) {
+        insertByTimestamp(total++, i, n);
+      }
+    }
+
+    // Keep the newest when there are too many
+    int first = Math.max(0, total - MAX_FUSED_PER_CYCLE);
+    int accepted = 0;
+    for (int k = first; k < total; k++) {
+      VisionIOInputs camera = inputs[orderCamera[k]];
+      int n = orderIndex[k];
+      if (drivetrain.addVisionObservation(camera.timestamps[n], camera.xMeters[n], camera.yMeters[n],
+          camera.rotationRadians[n], camera.ambiguities[n], camera.distancesMeters[n],
+          (int) camera.tagCounts[n])) {
+        accepted++;
+      }
+    }
+
+    Logger.getInstance().recordOutput("Vision/Accepted", accepted);
+    Logger.getInstance().recordOutput("Vision/Rejected", total - first - accepted);
+    Logger.getInstance().recordOutput("Vision/Skipped", first);
+    LoopTimings.stop(periodicSpan);
+  }
+
+  /** Insertion sort step: places observation n of a camera into the first size + 1 slots. */
+  private void insertByTimestamp(int size, int camera, int n) {
+    double timestamp = inputs[camera].timestamps[n];
+    int k = size;
+    while (k > 0 && inputs[orderCamera[k - 1]].timestamps[orderIndex[k - 1]] > timestamp) {
+      orderCamera[k] = orderCamera[k - 1];
+      orderIndex[k] = orderIndex[k - 1];
+      k--;
+    }
+    orderCamera[k] = camera;
+    orderIndex[k] = n;
+  }
+}
@@ -0,0 +1,73 @@
+package frc.robot.subsystems.vision;
+
+import org.littletonrobotics.junction.LogTable;
+import org.littletonrobotics.junction.inputs.LoggableInputs;
+
+/** Source of robot pose observations from a camera. */
+public interface VisionIO {
+  /**
+   * Every pose observation that arrived since the last cycle, as parallel arrays. Timestamps are
+   * capture times in seconds on the FPGA clock, so latency is already taken out.
+   */
+  public static class VisionIOInputs implements LoggableInputs {
+    public static final int MAX_OBSERVATIONS = 8;
+
+    public int count = 0;
+    public double[] timestamps = new double[MAX_OBSERVATIONS];
+    public double[] xMeters = new double[MAX_OBSERVATIONS];
+    public double[] yMeters = new double[MAX_OBSERVATIONS];
+    public double[] rotationRadians = new double[MAX_OBSERVATIONS];
+    public double[] ambiguities = new double[MAX_OBSERVATIONS];
+    public double[] distancesMeters = new double[MAX_OBSERVATIONS];
+    public double[] tagCounts = new double[MAX_OBSERVATIONS];
+
+    @Override
+    public void toLog(LogTable table) {
+      table.put("Count", count);
+      table.put("Timestamps", timestamps);
+      table.put("XMeters", xMeters);
+      table.put("YMeters", yMeters);
+      table.put("RotationRadians", rotationRadians);
+      table.put("Ambiguities", ambiguities);
+      table.put("DistancesMeters", distancesMeters);
+      table.put("TagCounts", tagCounts);
+    }
+
+    @Override
+    public void fromLog(LogTable table) {
+      count = (int) table.getInteger("Count", count);
+      copy(table.getDoubleArray("Timestamps", timestamps), timestamps);
+      copy(table.getDoubleArray("XMeters", xMeters), xMeters);
+      copy(table.getDoubleArray("YMeters", yMeters), yMeters);
+      copy(table.getDoubleArray("RotationRadians", rotationRadians), rotationRadians);
+      copy(table.getDoubleArray("Ambiguities", ambiguities), ambiguities);
+      copy(table.getDoubleArray("DistancesMeters", distancesMeters), distancesMeters);
+      copy(table.getDoubleArray("TagCounts", tagCounts), tagCounts);
+    }
+
+    private static void copy(double[] from, double[] to) {
+      if (from != to) {
+        System.arraycopy(from, 0, to, 0, Math.min(from.length, to.length));
+      }
+    }
+
+    /** Adds an observation, dropping it if this cycle is already full. */
+    public void add(double timestamp, double x, double y, double rotation, double ambiguity,
+        double distance, int tagCount) {
+      if (count == MAX_OBSERVATIONS) {
+        return;
+      }
+      timestamps[count] = timestamp;
+      xMeters[count] = x;
+      yMeters[count] = y;
+      rotationRadians[count] = rotation;
+      ambiguities[count] = ambiguity;
+      distancesMeters[count] = distance;
+      tagCounts[count] = tagCount;
+      count++;
+    }
+  }
+
+  /** Fills the inputs with the observations that arrived since the last call. */
+  public default void updateInputs(VisionIOInputs inputs) {}
+}
@@ -0,0 +1,63 @@
+package frc.robot.subsystems.vision;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.littletonrobotics.junction.Logger;
+
+import edu.wpi.first.wpilibj.DriverStation;
+import edu.wpi.first.wpilibj.Filesystem;
+
+/**
+ * Plays back pose observations from a CSV file in the deploy directory, for testing vision fusion
+ * in the simulator. Each row is "capture secs, latency ms, x m, y m, rotation deg, ambiguity,
+ * average tag distance m, tag count", with capture time measured from construction. A row is
+ * handed out once its latency has passed, timestamped at its capture time.
+ */
+public class VisionIOFile implements VisionIO {
+  private static final int COLUMNS = 8;
+
+  private final double[][] rows;
+  private final double startSecs;
+  private int next = 0;
+
+  /** @param fileName The CSV file, relative to the deploy directory. */
+  public VisionIOFile(String fileName) {
+    rows = load(Filesystem.getDeployDirectory().toPath().resolve(fileName));
+    startSecs = Logger.getInstance().getTimestamp() / 1.0e6;
+  }
+
+  private static double[][] load(Path path) {
+    try {
+      List<String> lines = Files.readAllLines(path);
+      return lines.stream()
+          .map(String::trim)
+          .filter(line -> !line.isEmpty() && !line.startsWith("#"))
+          .map(line -> line.split(","))
+          .filter(fields -> fields.length >= COLUMNS)
+          .map(fields -> {
+            double[] row = new double[COLUMNS];
+            for (int i = 0; i < COLUMNS; i++) {
+              row[i] = Double.parseDouble(fields[i].trim());
+            }
+            return row;
+          })
+          .toArray(double[][]::new);
+    } catch (IOException | NumberFormatException e) {
+      DriverStation.reportWarning("Could not load vision file " + path + ": " + e.getMessage(), false);
+      return new double[0][];
+    }
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    inputs.count = 0;
+    double elapsed = Logger.getInstance().getTimestamp() / 1.0e6 - startSecs;
+    while (next < rows.length && rows[next][0] + rows[next][1] / 1.0e3 <= elapsed) {
+      double[] row = rows[next++];
+      inputs.add(startSecs + row[0], row[2], row[3], Math.toRadians(row[4]), row[5], row[6], (int) row[7]);
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package frc.robot.subsystems.vision;
+
+import edu.wpi.first.networktables.DoubleArraySubscriber;
+import edu.wpi.first.networktables.NetworkTableInstance;
+import edu.wpi.first.networktables.PubSubOption;
+import edu.wpi.first.networktables.TimestampedDoubleArray;
+
+/**
+ * Reads pose observations a coprocessor publishes to "Vision/[camera]/Observations". Each entry is
+ * {latency ms, x m, y m, rotation rad, ambiguity, average tag distance m, tag count}. Every entry
+ * is queued, so several frames in one loop are all kept, and the capture time is the entry's
+ * arrival time minus the reported latency.
+ *
+ * <p>Also works as a stand-in source: anything that can publish to NetworkTables, like a laptop
+ * script against the simulator, can feed it.
+ */
+public class VisionIONetworkTables implements VisionIO {
+  private static final int ENTRY_LENGTH = 7;
+
+  private final DoubleArraySubscriber observations;
+
+  /** @param camera The camera's name under the "Vision" table. */
+  public VisionIONetworkTables(String camera) {
+    observations = NetworkTableInstance.getDefault().getTable("Vision").getSubTable(camera)
+        .getDoubleArrayTopic("Observations")
+        .subscribe(new double[] {},
+            PubSubOption.keepDuplicates(true),
+            PubSubOption.pollStorage(VisionIOInputs.MAX_OBSERVATIONS));
+  }
+
+  @Override
+  public void updateInputs(VisionIOInputs inputs) {
+    inputs.count = 0;
+    for (TimestampedDoubleArray entry : observations.readQueue()) {
+      double[] value = entry.value;
+      if (value.length < ENTRY_LENGTH) {
+        continue;
+      }
+      // NT timestamps are microseconds on the same clock as the FPGA
+      double captureSecs = entry.timestamp / 1.0e6 - value[0] / 1.0e3;
+      inputs.add(captureSecs, value[1], value[2], value[3], value[4], value[5], (int) value[6]);
+    }
+  }
+}
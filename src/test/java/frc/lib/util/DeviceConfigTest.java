@@ -0,0 +1,67 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class DeviceConfigTest {
+  private boolean readBack = true;
+
+  private DeviceConfig config(String name, int currentLimit, double kP) {
+    return new DeviceConfig(name)
+        .persistTo(name + " Config")
+        .factoryReset(() -> true)
+        .parameter("SmartCurrentLimit", currentLimit, () -> true)
+        .parameter("P", kP, () -> true, () -> readBack)
+        .apply("StatusFrames", () -> true)
+        .burnFlash(() -> true);
+  }
+
+  @Test
+  void sameConfigHasSameFingerprint() {
+    assertEquals(config("Spark 5", 40, 0.1).fingerprint(), config("Spark 5", 40, 0.1).fingerprint());
+  }
+
+  @Test
+  void fingerprintChangesWithAnyParameterOrDevice() {
+    String fingerprint = config("Spark 5", 40, 0.1).fingerprint();
+    assertNotEquals(fingerprint, config("Spark 5", 30, 0.1).fingerprint());
+    assertNotEquals(fingerprint, config("Spark 5", 40, 0.2).fingerprint());
+    assertNotEquals(fingerprint, config("Spark 6", 40, 0.1).fingerprint());
+  }
+
+  @Test
+  void fingerprintIgnoresVolatileSettings() {
+    DeviceConfig withExtra = config("Spark 5", 40, 0.1).apply("Follower", () -> true);
+    assertEquals(config("Spark 5", 40, 0.1).fingerprint(), withExtra.fingerprint());
+  }
+
+  @Test
+  void matchingStoredFingerprintSkipsTheBurn() {
+    DeviceConfig config = config("Spark 5", 40, 0.1);
+    assertTrue(config.matchesStored(config.fingerprint()));
+  }
+
+  @Test
+  void missingOrStaleFingerprintDoesNotMatch() {
+    DeviceConfig config = config("Spark 5", 40, 0.1);
+    assertFalse(config.matchesStored(""));
+    assertFalse(config.matchesStored(config("Spark 5", 30, 0.1).fingerprint()));
+  }
+
+  @Test
+  void parameterThatReadsBackDifferentDoesNotMatch() {
+    DeviceConfig config = config("Spark 5", 40, 0.1);
+    readBack = false;
+    assertFalse(config.matchesStored(config.fingerprint()));
+  }
+
+  @Test
+  void floatStoredParametersMatchWithinTolerance() {
+    assertTrue(DeviceConfig.matches((float) 0.1, 0.1));
+    assertFalse(DeviceConfig.matches(0.11, 0.1));
+  }
+}
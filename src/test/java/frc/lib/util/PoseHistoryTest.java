@@ -0,0 +1,107 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PoseHistoryTest {
+  private static final double EPSILON = 1e-9;
+
+  private final double[] out = new double[3];
+
+  @Test
+  void emptyHistoryHasNoPose() {
+    assertFalse(new PoseHistory(4).sample(1.0, out));
+  }
+
+  @Test
+  void interpolatesBetweenSamples() {
+    PoseHistory history = new PoseHistory(8);
+    history.add(1.0, 0.0, 0.0, 0.0);
+    history.add(2.0, 2.0, -4.0, 1.0);
+    history.add(3.0, 3.0, -4.0, 1.0);
+
+    assertTrue(history.sample(1.25, out));
+    assertEquals(0.5, out[0], EPSILON);
+    assertEquals(-1.0, out[1], EPSILON);
+    assertEquals(0.25, out[2], EPSILON);
+
+    assertTrue(history.sample(2.5, out));
+    assertEquals(2.5, out[0], EPSILON);
+    assertEquals(-4.0, out[1], EPSILON);
+    assertEquals(1.0, out[2], EPSILON);
+  }
+
+  @Test
+  void exactTimestampsReturnTheirSample() {
+    PoseHistory history = new PoseHistory(8);
+    history.add(1.0, 1.0, 1.0, 0.1);
+    history.add(2.0, 2.0, 2.0, 0.2);
+    history.add(3.0, 3.0, 3.0, 0.3);
+
+    for (int i = 1; i <= 3; i++) {
+      assertTrue(history.sample(i, out));
+      assertEquals(i, out[0], EPSILON);
+      assertEquals(0.1 * i, out[2], EPSILON);
+    }
+  }
+
+  @Test
+  void headingInterpolatesTheShortWayAcrossTheWrap() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(0.0, 0.0, 0.0, Math.PI - 0.1);
+    history.add(1.0, 0.0, 0.0, -Math.PI + 0.1);
+
+    assertTrue(history.sample(0.5, out));
+    assertEquals(Math.PI, Math.abs(out[2]), EPSILON);
+
+    assertTrue(history.sample(0.75, out));
+    assertEquals(-Math.PI + 0.05, out[2], EPSILON);
+  }
+
+  @Test
+  void timesOutsideTheHistory() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1.0, 0.0, 0.0);
+    history.add(2.0, 2.0, 0.0, 0.0);
+
+    assertFalse(history.sample(0.5, out));
+    assertTrue(history.sample(5.0, out));
+    assertEquals(2.0, out[0], EPSILON);
+  }
+
+  @Test
+  void oldestSamplesAreOverwrittenWhenFull() {
+    PoseHistory history = new PoseHistory(3);
+    for (int i = 0; i < 5; i++) {
+      history.add(i, i * 10.0, 0.0, 0.0);
+    }
+    assertEquals(3, history.size());
+    assertEquals(2.0, history.getOldestTimestamp());
+    assertEquals(4.0, history.getNewestTimestamp());
+    assertFalse(history.sample(1.5, out));
+    assertTrue(history.sample(3.5, out));
+    assertEquals(35.0, out[0], EPSILON);
+  }
+
+  @Test
+  void outOfOrderSamplesAreIgnored() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(2.0, 2.0, 0.0, 0.0);
+    history.add(1.0, 1.0, 0.0, 0.0);
+    assertEquals(1, history.size());
+    assertEquals(2.0, history.getOldestTimestamp());
+  }
+
+  @Test
+  void clearDropsEverything() {
+    PoseHistory history = new PoseHistory(4);
+    history.add(1.0, 1.0, 0.0, 0.0);
+    history.clear();
+    assertEquals(0, history.size());
+    assertFalse(history.sample(1.0, out));
+    assertTrue(Double.isNaN(history.getNewestTimestamp()));
+  }
+}
@@ -0,0 +1,87 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SampledTrajectoryTest {
+  private static final double EPSILON = 1e-9;
+  private static final double DT = 0.01;
+
+  @TempDir
+  Path directory;
+
+  private final double[] out = new double[SampledTrajectory.STRIDE];
+
+  /** Two rows: at rest at the origin, then moving at 1 m/s turned by the given angles. */
+  private SampledTrajectory twoSamples(double fromAngle, double toAngle) throws IOException {
+    double[] samples = {
+      0.0, 0.0, fromAngle, 0.0, fromAngle, 0.0,
+      0.01, -0.02, toAngle, 1.0, toAngle, 2.0,
+    };
+    Path file = directory.resolve("path" + SampledTrajectory.EXTENSION);
+    SampledTrajectory.write(file, samples, DT, DT, 3.0, 2.0);
+    return SampledTrajectory.map(file);
+  }
+
+  @Test
+  void headerRoundTrips() throws IOException {
+    SampledTrajectory trajectory = twoSamples(0.0, 0.0);
+    assertEquals(DT, trajectory.getTotalTimeSeconds());
+    assertEquals(3.0, trajectory.getMaxVelocity());
+    assertEquals(2.0, trajectory.getMaxAcceleration());
+  }
+
+  @Test
+  void interpolatesBetweenSamples() throws IOException {
+    SampledTrajectory trajectory = twoSamples(0.0, 0.4);
+    trajectory.sample(DT / 4, out);
+    assertEquals(0.0025, out[SampledTrajectory.X], EPSILON);
+    assertEquals(-0.005, out[SampledTrajectory.Y], EPSILON);
+    assertEquals(0.1, out[SampledTrajectory.HEADING], EPSILON);
+    assertEquals(0.25, out[SampledTrajectory.VELOCITY], EPSILON);
+    assertEquals(0.1, out[SampledTrajectory.HOLONOMIC_ROTATION], EPSILON);
+    assertEquals(0.5, out[SampledTrajectory.HOLONOMIC_ANGULAR_VELOCITY], EPSILON);
+  }
+
+  @Test
+  void timesAreClampedToTheTrajectory() throws IOException {
+    SampledTrajectory trajectory = twoSamples(0.0, 0.4);
+    trajectory.sample(-1.0, out);
+    assertEquals(0.0, out[SampledTrajectory.X], EPSILON);
+    trajectory.sample(5.0, out);
+    assertEquals(0.01, out[SampledTrajectory.X], EPSILON);
+    assertEquals(1.0, out[SampledTrajectory.VELOCITY], EPSILON);
+  }
+
+  @Test
+  void anglesInterpolateTheShortWayAcrossTheWrap() throws IOException {
+    SampledTrajectory trajectory = twoSamples(Math.PI - 0.1, -Math.PI + 0.1);
+    trajectory.sample(DT / 2, out);
+    assertEquals(Math.PI, Math.abs(out[SampledTrajectory.HEADING]), EPSILON);
+    assertEquals(Math.PI, Math.abs(out[SampledTrajectory.HOLONOMIC_ROTATION]), EPSILON);
+  }
+
+  @Test
+  void rejectsFilesThatAreNotTrajectories() throws IOException {
+    Path file = directory.resolve("bad" + SampledTrajectory.EXTENSION);
+    Files.write(file, new byte[64]);
+    assertThrows(IOException.class, () -> SampledTrajectory.map(file));
+  }
+
+  @Test
+  void rejectsTruncatedFiles() throws IOException {
+    Path file = directory.resolve("short" + SampledTrajectory.EXTENSION);
+    SampledTrajectory.write(file, new double[SampledTrajectory.STRIDE * 3], DT, 2 * DT, 3.0, 2.0);
+    byte[] bytes = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+    assertThrows(IOException.class, () -> SampledTrajectory.map(file));
+  }
+}
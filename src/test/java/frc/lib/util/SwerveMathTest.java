@@ -0,0 +1,166 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import edu.wpi.first.math.MathUtil;
+import edu.wpi.first.math.geometry.Pose2d;
+import edu.wpi.first.math.geometry.Rotation2d;
+import edu.wpi.first.math.geometry.Twist2d;
+import edu.wpi.first.math.geometry.Translation2d;
+import edu.wpi.first.math.kinematics.ChassisSpeeds;
+import edu.wpi.first.math.kinematics.SwerveDriveKinematics;
+import edu.wpi.first.math.kinematics.SwerveModuleState;
+
+class SwerveMathTest {
+  private static final double EPSILON = 1e-9;
+  private static final double[] MODULE_X = {-0.3556, -0.3556, 0.3556, 0.3556};
+  private static final double[] MODULE_Y = {0.3556, -0.3556, -0.3556, 0.3556};
+  private static final SwerveDriveKinematics KINEMATICS = new SwerveDriveKinematics(
+      new Translation2d(MODULE_X[0], MODULE_Y[0]),
+      new Translation2d(MODULE_X[1], MODULE_Y[1]),
+      new Translation2d(MODULE_X[2], MODULE_Y[2]),
+      new Translation2d(MODULE_X[3], MODULE_Y[3]));
+
+  @ParameterizedTest
+  @CsvSource({
+    "1.0, 0.0, 0.0, 0.0",
+    "1.5, -2.0, 0.5, 0.7",
+    "-3.0, 1.0, -2.0, 2.5",
+    "0.0, 4.0, 1.0, -1.9",
+  })
+  void fromFieldRelativeMatchesChassisSpeeds(double vx, double vy, double omega, double yaw) {
+    double[] out = new double[3];
+    SwerveMath.fromFieldRelative(vx, vy, omega, yaw, out);
+    ChassisSpeeds expected = ChassisSpeeds.fromFieldRelativeSpeeds(vx, vy, omega, new Rotation2d(yaw));
+    assertEquals(expected.vxMetersPerSecond, out[0], EPSILON);
+    assertEquals(expected.vyMetersPerSecond, out[1], EPSILON);
+    assertEquals(expected.omegaRadiansPerSecond, out[2], EPSILON);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "1.0, 0.0, 0.0",
+    "0.0, -2.0, 0.0",
+    "1.5, -2.0, 0.5",
+    "-3.0, 1.0, -4.0",
+    "0.0, 0.0, 3.0",
+  })
+  void toModuleStatesMatchesKinematics(double vx, double vy, double omega) {
+    double[] speeds = new double[4];
+    double[] angles = new double[4];
+    SwerveMath.toModuleStates(vx, vy, omega, MODULE_X, MODULE_Y, speeds, angles);
+    SwerveModuleState[] expected = KINEMATICS.toSwerveModuleStates(new ChassisSpeeds(vx, vy, omega));
+    for (int i = 0; i < 4; i++) {
+      assertEquals(expected[i].speedMetersPerSecond, speeds[i], EPSILON);
+      assertEquals(expected[i].angle.getDegrees(), angles[i], EPSILON);
+    }
+  }
+
+  @Test
+  void toModuleStatesKeepsAnglesWhenStopped() {
+    double[] speeds = {1.0, 1.0, 1.0, 1.0};
+    double[] angles = {10.0, 20.0, 30.0, 40.0};
+    SwerveMath.toModuleStates(0.0, 0.0, 0.0, MODULE_X, MODULE_Y, speeds, angles);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(0.0, speeds[i]);
+      assertEquals(10.0 * (i + 1), angles[i]);
+    }
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "1.0, -2.0, 0.5, 3.0, 4.5",
+    "6.0, -2.0, 0.5, 3.0, 4.5",
+    "1.0, -7.0, 5.5, -3.0, 4.5",
+  })
+  void desaturateMatchesKinematics(double a, double b, double c, double d, double maxSpeed) {
+    double[] speeds = {a, b, c, d};
+    SwerveModuleState[] expected = new SwerveModuleState[] {
+      new SwerveModuleState(a, new Rotation2d()), new SwerveModuleState(b, new Rotation2d()),
+      new SwerveModuleState(c, new Rotation2d()), new SwerveModuleState(d, new Rotation2d())
+    };
+    SwerveDriveKinematics.desaturateWheelSpeeds(expected, maxSpeed);
+    double scale = SwerveMath.desaturate(speeds, maxSpeed);
+    for (int i = 0; i < 4; i++) {
+      assertEquals(expected[i].speedMetersPerSecond, speeds[i], EPSILON);
+    }
+    assertEquals(expected[0].speedMetersPerSecond / a, scale, EPSILON);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "0.0, 0.0",
+    "45.0, 0.0",
+    "135.0, 0.0",
+    "-170.0, 170.0",
+    "100.0, -100.0",
+    "10.0, 179.0",
+    "-60.0, 60.0",
+  })
+  void reverseMatchesOptimize(double target, double current) {
+    SwerveModuleState expected = SwerveModuleState.optimize(
+        new SwerveModuleState(2.0, Rotation2d.fromDegrees(target)), Rotation2d.fromDegrees(current));
+    boolean reversed = SwerveMath.shouldReverse(target, current);
+    double speed = reversed ? -2.0 : 2.0;
+    double angle = reversed ? SwerveMath.reverse(target) : target;
+    assertEquals(expected.speedMetersPerSecond, speed, EPSILON);
+    assertEquals(0.0, expected.angle.minus(Rotation2d.fromDegrees(angle)).getDegrees(), 1e-6);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "1.0, 0.0, 0.0",
+    "2.0, -1.0, 3.0",
+    "-3.0, 1.5, -5.0",
+    "0.0, 0.0, 2.0",
+  })
+  void discretizeMatchesTwistLog(double vx, double vy, double omega) {
+    double dt = 0.02;
+    double[] out = new double[3];
+    SwerveMath.discretize(vx, vy, omega, dt, out);
+    Twist2d twist = new Pose2d().log(new Pose2d(vx * dt, vy * dt, new Rotation2d(omega * dt)));
+    assertEquals(twist.dx / dt, out[0], 1e-9);
+    assertEquals(twist.dy / dt, out[1], 1e-9);
+    assertEquals(twist.dtheta / dt, out[2], 1e-9);
+  }
+
+  @ParameterizedTest
+  @CsvSource({
+    "2.0, 0.0, 1.0, 0.0",
+    "1.0, -1.5, 2.5, 0.8",
+    "-2.0, 0.5, -3.0, -2.2",
+  })
+  void steerRatesMatchFiniteDifferences(double fieldVx, double fieldVy, double omega, double yaw) {
+    // Field relative velocity held constant while the robot turns; yaw advances at omega
+    double h = 1e-6;
+    double[] speeds = new double[3];
+    double[] moduleSpeeds = new double[4];
+    double[] before = new double[4];
+    double[] after = new double[4];
+    SwerveMath.fromFieldRelative(fieldVx, fieldVy, omega, yaw - h, speeds);
+    SwerveMath.toModuleStates(speeds[0], speeds[1], speeds[2], MODULE_X, MODULE_Y, moduleSpeeds, before);
+    SwerveMath.fromFieldRelative(fieldVx, fieldVy, omega, yaw + h, speeds);
+    SwerveMath.toModuleStates(speeds[0], speeds[1], speeds[2], MODULE_X, MODULE_Y, moduleSpeeds, after);
+
+    double[] rates = new double[4];
+    SwerveMath.fromFieldRelative(fieldVx, fieldVy, omega, yaw, speeds);
+    SwerveMath.toModuleSteerRates(speeds[0], speeds[1], speeds[2], MODULE_X, MODULE_Y, rates);
+    for (int i = 0; i < 4; i++) {
+      double dAngle = Math.toRadians(MathUtil.inputModulus(after[i] - before[i], -180.0, 180.0));
+      assertEquals(dAngle / (2 * h) * omega, rates[i], 1e-4);
+    }
+  }
+
+  @Test
+  void steerRatesAreZeroWithoutRotation() {
+    double[] rates = {1.0, 1.0, 1.0, 1.0};
+    SwerveMath.toModuleSteerRates(2.0, -1.0, 0.0, MODULE_X, MODULE_Y, rates);
+    for (double rate : rates) {
+      assertEquals(0.0, rate, EPSILON);
+    }
+  }
+}
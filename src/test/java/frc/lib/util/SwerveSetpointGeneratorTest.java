@@ -0,0 +1,161 @@
+package frc.lib.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SwerveSetpointGeneratorTest {
+  private static final double EPSILON = 1e-9;
+  private static final double[] MODULE_X = {-0.3556, -0.3556, 0.3556, 0.3556};
+  private static final double[] MODULE_Y = {0.3556, -0.3556, -0.3556, 0.3556};
+  private static final double MAX_SPEED = 4.5;
+  private static final double DT = 0.02;
+
+  private static SwerveSetpointGenerator generator(double maxAcceleration, double maxSteerRate) {
+    return new SwerveSetpointGenerator(MODULE_X, MODULE_Y, MAX_SPEED, maxAcceleration, maxSteerRate, DT);
+  }
+
+  @Test
+  void needsResetUntilResetAndAfterInvalidate() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    assertTrue(generator.needsReset(0.0));
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    assertFalse(generator.needsReset(DT));
+    generator.invalidate();
+    assertTrue(generator.needsReset(DT));
+  }
+
+  @Test
+  void needsResetAfterALongGap() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    generator.generate(DT, new double[3]);
+    assertFalse(generator.needsReset(0.1));
+    assertTrue(generator.needsReset(0.5));
+  }
+
+  @Test
+  void resetSetsTheStartingSetpoint() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    generator.reset(1.0, -0.5, 0.25, 0.0);
+    double[] speeds = {1.0, -0.5, 0.25};
+    assertEquals(1.0, generator.generate(0.0, DT, speeds), EPSILON);
+    assertEquals(1.0, speeds[0], EPSILON);
+    assertEquals(-0.5, speeds[1], EPSILON);
+    assertEquals(0.25, speeds[2], EPSILON);
+  }
+
+  @Test
+  void accelerationIsCappedPerModule() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    double[] speeds = {4.0, 0.0, 0.0};
+    double fraction = generator.generate(DT, DT, speeds);
+    assertEquals(0.04, fraction, EPSILON);
+    assertEquals(8.0 * DT, speeds[0], EPSILON);
+    assertEquals(0.0, speeds[1], EPSILON);
+  }
+
+  @Test
+  void firstStepAfterResetIsANominalPeriod() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    // The drivetrain resets and generates with the same cycle time
+    generator.reset(0.0, 0.0, 0.0, 1.0);
+    double[] speeds = {4.0, 0.0, 0.0};
+    generator.generate(1.0, speeds);
+    assertEquals(8.0 * DT, speeds[0], EPSILON);
+
+    // Later steps measure from the previous call again
+    speeds[0] = 4.0;
+    generator.generate(1.0 + DT / 2, speeds);
+    assertEquals(8.0 * DT * 1.5, speeds[0], EPSILON);
+  }
+
+  @Test
+  void reachesTheRequestAtTheAccelerationLimit() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    double[] speeds = new double[3];
+    for (int n = 1; n <= 25; n++) {
+      speeds[0] = 4.0;
+      speeds[1] = 0.0;
+      speeds[2] = 0.0;
+      generator.generate(n * DT, speeds);
+    }
+    assertEquals(4.0, speeds[0], 1e-6);
+  }
+
+  @Test
+  void elapsedTimeStepsLikeAFixedStep() {
+    SwerveSetpointGenerator timed = generator(8.0, 20.0);
+    SwerveSetpointGenerator fixed = generator(8.0, 20.0);
+    timed.reset(0.0, 0.0, 0.0, 1.0);
+    fixed.reset(0.0, 0.0, 0.0, 1.0);
+    double[] timedSpeeds = {3.0, -2.0, 1.0};
+    double[] fixedSpeeds = {3.0, -2.0, 1.0};
+    timed.generate(1.0, timedSpeeds);
+    fixed.generate(1.0, DT, fixedSpeeds);
+
+    double[] request = {3.0, -2.0, 1.0};
+    System.arraycopy(request, 0, timedSpeeds, 0, 3);
+    System.arraycopy(request, 0, fixedSpeeds, 0, 3);
+    timed.generate(1.0 + 2 * DT, timedSpeeds);
+    fixed.generate(1.0 + 2 * DT, 2 * DT, fixedSpeeds);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(fixedSpeeds[i], timedSpeeds[i], EPSILON);
+    }
+  }
+
+  @Test
+  void longStepsAreClampedToTheMaxGap() {
+    SwerveSetpointGenerator generator = generator(8.0, 20.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    double[] speeds = {4.0, 0.0, 0.0};
+    generator.generate(0.0, 1.0, speeds);
+    assertEquals(8.0 * 0.1, speeds[0], EPSILON);
+  }
+
+  @Test
+  void requestIsDesaturated() {
+    SwerveSetpointGenerator generator = generator(1000.0, 1000.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    double[] speeds = {9.0, 0.0, 0.0};
+    generator.generate(DT, DT, speeds);
+    assertEquals(MAX_SPEED, speeds[0], EPSILON);
+  }
+
+  @Test
+  void steeringIsLimitedForMovingModules() {
+    double maxSteerRate = 20.0;
+    SwerveSetpointGenerator generator = generator(1000.0, maxSteerRate);
+    generator.reset(2.0, 0.0, 0.0, 0.0);
+    double[] speeds = {0.0, 2.0, 0.0};
+    double fraction = generator.generate(DT, DT, speeds);
+
+    assertTrue(fraction < 1.0);
+    double heading = Math.atan2(speeds[1], speeds[0]);
+    assertTrue(heading <= maxSteerRate * DT + EPSILON);
+    // Bisection lands close to the limit, not just anywhere under it
+    assertTrue(heading > 0.9 * maxSteerRate * DT);
+  }
+
+  @Test
+  void reversingFlipsInsteadOfSteering() {
+    SwerveSetpointGenerator generator = generator(1000.0, 20.0);
+    generator.reset(2.0, 0.0, 0.0, 0.0);
+    double[] speeds = {-2.0, 0.0, 0.0};
+    assertEquals(1.0, generator.generate(DT, DT, speeds), EPSILON);
+    assertEquals(-2.0, speeds[0], EPSILON);
+  }
+
+  @Test
+  void startingFromRestIsNotSteeringLimited() {
+    SwerveSetpointGenerator generator = generator(1000.0, 20.0);
+    generator.reset(0.0, 0.0, 0.0, 0.0);
+    double[] speeds = {0.0, 2.0, 0.0};
+    assertEquals(1.0, generator.generate(DT, DT, speeds), EPSILON);
+    assertEquals(2.0, speeds[1], EPSILON);
+  }
+}
@@ -0,0 +1,85 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class GyroSampleRingTest {
+  private final double[] out = new double[GyroService.SAMPLE_SIZE];
+
+  private static void write(GyroSampleRing ring, double n) {
+    ring.write(n, n + 1, n + 2, n + 3, n + 4, n + 5, n + 6);
+  }
+
+  private void assertSample(double n) {
+    assertEquals(n, out[GyroService.TIMESTAMP]);
+    assertEquals(n + 1, out[GyroService.ANGLE]);
+    assertEquals(n + 2, out[GyroService.PITCH]);
+    assertEquals(n + 3, out[GyroService.ROLL]);
+    assertEquals(n + 4, out[GyroService.RATE_X]);
+    assertEquals(n + 5, out[GyroService.RATE_Y]);
+    assertEquals(n + 6, out[GyroService.RATE_Z]);
+  }
+
+  @Test
+  void emptyRingHasNoSample() {
+    GyroSampleRing ring = new GyroSampleRing(8);
+    assertFalse(ring.readLatest(out));
+    assertTrue(Double.isNaN(ring.latestAngle()));
+  }
+
+  @Test
+  void readsTheNewestSample() {
+    GyroSampleRing ring = new GyroSampleRing(8);
+    for (int n = 0; n < 3; n++) {
+      write(ring, n);
+    }
+    assertTrue(ring.readLatest(out));
+    assertSample(2);
+    assertEquals(3, ring.latestAngle());
+  }
+
+  @Test
+  void overwritesTheOldestWhenFull() {
+    GyroSampleRing ring = new GyroSampleRing(8);
+    for (int n = 0; n < 8 * 3 + 5; n++) {
+      write(ring, n);
+    }
+    assertEquals(29, ring.getWriteCount());
+    assertTrue(ring.readLatest(out));
+    assertSample(28);
+  }
+
+  @Test
+  void lappedReadsNeverReturnATornSample() throws InterruptedException {
+    // A small ring so the writer laps the reader as often as possible
+    GyroSampleRing ring = new GyroSampleRing(4);
+    int samples = 200000;
+    Thread writer = new Thread(() -> {
+      for (int n = 0; n < samples; n++) {
+        write(ring, n);
+      }
+    });
+    writer.start();
+
+    double last = -1;
+    while (writer.isAlive() || last < samples - 1) {
+      if (!ring.readLatest(out)) {
+        continue;
+      }
+      double n = out[GyroService.TIMESTAMP];
+      assertSample(n);
+      assertTrue(n >= last);
+      last = n;
+    }
+    writer.join();
+  }
+
+  @Test
+  void rejectsCapacityThatIsNotAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new GyroSampleRing(12));
+  }
+}
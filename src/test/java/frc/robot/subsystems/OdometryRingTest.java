@@ -0,0 +1,84 @@
+package frc.robot.subsystems;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class OdometryRingTest {
+  private static final int CAPACITY = 8;
+  private static final int MODULES = 2;
+
+  private OdometryRing ring;
+  private final double[] timestamps = new double[CAPACITY];
+  private final double[] yaws = new double[CAPACITY];
+  private final double[] drive = new double[CAPACITY * MODULES];
+  private final double[] turn = new double[CAPACITY * MODULES];
+
+  @BeforeEach
+  void setUp() {
+    ring = new OdometryRing(CAPACITY, MODULES);
+  }
+
+  private boolean write(int n) {
+    return ring.write(n, n * 10.0, new double[] {n, n + 0.5}, new double[] {-n, -n - 0.5});
+  }
+
+  @Test
+  void drainsInOrder() {
+    for (int n = 0; n < 3; n++) {
+      assertTrue(write(n));
+    }
+    assertEquals(3, ring.drain(timestamps, yaws, drive, turn));
+    for (int n = 0; n < 3; n++) {
+      assertEquals(n, timestamps[n]);
+      assertEquals(n * 10.0, yaws[n]);
+      assertArrayEquals(new double[] {n, n + 0.5}, new double[] {drive[n * 2], drive[n * 2 + 1]});
+      assertArrayEquals(new double[] {-n, -n - 0.5}, new double[] {turn[n * 2], turn[n * 2 + 1]});
+    }
+    assertEquals(0, ring.drain(timestamps, yaws, drive, turn));
+  }
+
+  @Test
+  void dropsNewSamplesWhenFull() {
+    for (int n = 0; n < CAPACITY; n++) {
+      assertTrue(write(n));
+    }
+    assertTrue(ring.isFull());
+    assertFalse(write(CAPACITY));
+    assertFalse(write(CAPACITY + 1));
+    assertEquals(2, ring.getDroppedCount());
+
+    assertEquals(CAPACITY, ring.drain(timestamps, yaws, drive, turn));
+    for (int n = 0; n < CAPACITY; n++) {
+      assertEquals(n, timestamps[n]);
+    }
+    assertFalse(ring.isFull());
+  }
+
+  @Test
+  void wrapsAroundTheEnd() {
+    int next = 0;
+    for (int round = 0; round < 5; round++) {
+      int first = next;
+      for (int n = 0; n < 5; n++) {
+        assertTrue(write(next++));
+      }
+      assertEquals(5, ring.drain(timestamps, yaws, drive, turn));
+      for (int n = 0; n < 5; n++) {
+        assertEquals(first + n, timestamps[n]);
+        assertEquals(first + n + 0.5, drive[n * 2 + 1]);
+      }
+    }
+    assertEquals(0, ring.getDroppedCount());
+  }
+
+  @Test
+  void rejectsCapacityThatIsNotAPowerOfTwo() {
+    assertThrows(IllegalArgumentException.class, () -> new OdometryRing(10, MODULES));
+  }
+}